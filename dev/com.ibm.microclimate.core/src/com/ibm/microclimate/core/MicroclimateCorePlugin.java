@@ -13,7 +13,9 @@ package com.ibm.microclimate.core;
 
 import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.osgi.service.debug.DebugOptionsListener;
@@ -21,9 +23,13 @@ import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
 import com.ibm.microclimate.core.internal.IDebugLauncher;
+import com.ibm.microclimate.core.internal.IModelChangeListener;
 import com.ibm.microclimate.core.internal.IUpdateHandler;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot;
+import com.ibm.microclimate.core.internal.connection.ProjectStatusCoalescer;
+import com.ibm.microclimate.core.internal.console.LogBuffer;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -41,11 +47,22 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 	
 	public static final String NODEJS_DEBUG_BROWSER_PREFSKEY = "nodejsDebugBrowserName"; //$NON-NLS-1$
 
+	// Int option for how long in milliseconds to merge bursts of project status changes, 0 to turn it off
+	public static final String STATUS_COALESCE_WINDOW_PREFSKEY = "projectStatusCoalesceWindow"; //$NON-NLS-1$
+
+	// String option for what a log console does when it cannot keep up: block, merge or dropOldest
+	public static final String LOG_BUFFER_POLICY_PREFSKEY = "logBufferPolicy"; //$NON-NLS-1$
+
+	// Int option for how many characters of log output a console can have waiting to be written
+	public static final String LOG_BUFFER_SIZE_PREFSKEY = "logBufferSize"; //$NON-NLS-1$
+
 	// The shared instance
 	private static MicroclimateCorePlugin plugin;
 	
 	private static IUpdateHandler updateHandler;
 	
+	private static final List<IModelChangeListener> modelChangeListeners = new CopyOnWriteArrayList<IModelChangeListener>();
+	
 	private static Map<String, IDebugLauncher> debugLaunchers = new HashMap<String, IDebugLauncher>();
 
 	/**
@@ -69,6 +86,10 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 		// Set default preferences once, here
 		getPreferenceStore().setDefault(DEBUG_CONNECT_TIMEOUT_PREFSKEY,
 				MCEclipseApplication.DEFAULT_DEBUG_CONNECT_TIMEOUT);
+		getPreferenceStore().setDefault(STATUS_COALESCE_WINDOW_PREFSKEY,
+				ProjectStatusCoalescer.DEFAULT_WINDOW_MS);
+		getPreferenceStore().setDefault(LOG_BUFFER_POLICY_PREFSKEY, LogBuffer.DEFAULT_POLICY.id);
+		getPreferenceStore().setDefault(LOG_BUFFER_SIZE_PREFSKEY, LogBuffer.DEFAULT_CAPACITY);
 	}
 
 	/*
@@ -77,6 +98,7 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ConnectionSnapshot.save();
 		plugin = null;
 		super.stop(context);
 	}
@@ -103,6 +125,18 @@ public class MicroclimateCorePlugin extends AbstractUIPlugin {
 		return updateHandler;
 	}
 	
+	public static void addModelChangeListener(IModelChangeListener listener) {
+		modelChangeListeners.add(listener);
+	}
+	
+	public static void removeModelChangeListener(IModelChangeListener listener) {
+		modelChangeListeners.remove(listener);
+	}
+	
+	public static List<IModelChangeListener> getModelChangeListeners() {
+		return modelChangeListeners;
+	}
+	
 	public static void addDebugLauncher(String language, IDebugLauncher launcher) {
 		debugLaunchers.put(language, launcher);
 	}
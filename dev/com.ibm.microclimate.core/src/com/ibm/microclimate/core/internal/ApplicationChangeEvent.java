@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A change to the state of a Microclimate application, with the states before and after.
+ */
+public class ApplicationChangeEvent {
+
+	public enum Field {
+		APP_STATE,
+		// The build status and its details
+		BUILD_STATUS,
+		START_MODE,
+		// The http and debug ports
+		PORTS,
+		CONTEXT_ROOT,
+		AUTO_BUILD,
+		ENABLED,
+		CONTAINER_ID,
+		ACTION,
+		LOGS,
+		METRICS,
+		STALE;
+	}
+
+	public final MicroclimateApplication app;
+	public final ApplicationState oldState;
+	public final ApplicationState newState;
+	// Unmodifiable, never empty
+	public final Set<Field> fields;
+
+	ApplicationChangeEvent(MicroclimateApplication app, ApplicationState oldState, ApplicationState newState,
+			Set<Field> fields) {
+		this.app = app;
+		this.oldState = oldState;
+		this.newState = newState;
+		this.fields = Collections.unmodifiableSet(fields);
+	}
+
+	public boolean hasChanged(Field field) {
+		return fields.contains(field);
+	}
+
+	/**
+	 * @return The fields that differ between the two states, empty if there is no visible change.
+	 */
+	static Set<Field> diff(ApplicationState oldState, ApplicationState newState) {
+		Set<Field> fields = EnumSet.noneOf(Field.class);
+		if (oldState.appState != newState.appState) {
+			fields.add(Field.APP_STATE);
+		}
+		if (oldState.buildStatus != newState.buildStatus || !Objects.equals(oldState.buildDetails, newState.buildDetails)) {
+			fields.add(Field.BUILD_STATUS);
+		}
+		if (oldState.startMode != newState.startMode) {
+			fields.add(Field.START_MODE);
+		}
+		if (oldState.httpPort != newState.httpPort || oldState.debugPort != newState.debugPort) {
+			fields.add(Field.PORTS);
+		}
+		if (!Objects.equals(oldState.contextRoot, newState.contextRoot)) {
+			fields.add(Field.CONTEXT_ROOT);
+		}
+		if (oldState.autoBuild != newState.autoBuild) {
+			fields.add(Field.AUTO_BUILD);
+		}
+		if (oldState.enabled != newState.enabled) {
+			fields.add(Field.ENABLED);
+		}
+		if (!Objects.equals(oldState.containerId, newState.containerId)) {
+			fields.add(Field.CONTAINER_ID);
+		}
+		if (!Objects.equals(oldState.action, newState.action)) {
+			fields.add(Field.ACTION);
+		}
+		if (!oldState.logInfos.equals(newState.logInfos)) {
+			fields.add(Field.LOGS);
+		}
+		if (oldState.metricsAvailable != newState.metricsAvailable) {
+			fields.add(Field.METRICS);
+		}
+		if (oldState.stale != newState.stale) {
+			fields.add(Field.STALE);
+		}
+		return fields;
+	}
+
+	@Override
+	public String toString() {
+		return "ApplicationChangeEvent name=" + app.name + " fields=" + fields; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
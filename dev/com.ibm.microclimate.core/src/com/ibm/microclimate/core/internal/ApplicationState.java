@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
+import com.ibm.microclimate.core.internal.constants.AppState;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.core.internal.constants.StartMode;
+
+/**
+ * The changing state of a Microclimate application at one point in time. A state never changes,
+ * each update to the application publishes a new one. Use {@link MicroclimateApplication#getState()}
+ * to read several values that are consistent with each other, for example when painting a label.
+ */
+public class ApplicationState {
+
+	// Increases by one for each new state of the application
+	public final long version;
+	public final String contextRoot;	// can be null
+	public final StartMode startMode;
+	public final AppState appState;
+	public final BuildStatus buildStatus;
+	public final String buildDetails;	// can be null
+	public final boolean autoBuild;
+	public final boolean enabled;
+	public final String containerId;
+	public final String action;
+	// Unmodifiable
+	public final List<ProjectLogInfo> logInfos;
+	public final boolean metricsAvailable;
+	// An httpPort of -1 indicates the app is not started - could be building or disabled.
+	public final int httpPort, debugPort;
+	// Null if the app is not started
+	public final URL baseUrl;
+	// Set while the connection is down, until the app has been checked against the project list again
+	public final boolean stale;
+
+	private ApplicationState(Builder builder, String host) {
+		this.version = builder.version;
+		this.contextRoot = builder.contextRoot;
+		this.startMode = builder.startMode;
+		this.appState = builder.appState;
+		this.buildStatus = builder.buildStatus;
+		this.buildDetails = builder.buildDetails;
+		this.autoBuild = builder.autoBuild;
+		this.enabled = builder.enabled;
+		this.containerId = builder.containerId;
+		this.action = builder.action;
+		this.logInfos = builder.logInfos;
+		this.metricsAvailable = builder.metricsAvailable;
+		this.httpPort = builder.httpPort;
+		this.debugPort = builder.debugPort;
+		this.stale = builder.stale;
+		this.baseUrl = createBaseUrl(host, httpPort, contextRoot);
+	}
+
+	private static URL createBaseUrl(String host, int httpPort, String contextRoot) {
+		if (httpPort == -1) {
+			return null;
+		}
+		try {
+			URL url = new URL("http", host, httpPort, ""); //$NON-NLS-1$ //$NON-NLS-2$
+			if (contextRoot != null && !contextRoot.isEmpty()) {
+				url = new URL(url, contextRoot);
+			}
+			return url;
+		} catch (MalformedURLException e) {
+			MCLogger.logError("An error occurred creating the base url for host: " + host //$NON-NLS-1$
+					+ ", port: " + httpPort + ", context root: " + contextRoot, e); //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+	}
+
+	/**
+	 * The state of a new application.
+	 */
+	static ApplicationState initial(String host) {
+		return new Builder().build(host);
+	}
+
+	/**
+	 * @return A builder for the next state, starting from the values in this one.
+	 */
+	Builder edit() {
+		return new Builder(this);
+	}
+
+	public boolean isActive() {
+		return appState == AppState.STARTING || appState == AppState.STARTED;
+	}
+
+	public boolean isRunning() {
+		return baseUrl != null;
+	}
+
+	public boolean isDeleting() {
+		return MCConstants.VALUE_ACTION_DELETING.equals(action);
+	}
+
+	public boolean isImporting() {
+		// The action value is called "validating" but really this means the project is importing
+		return MCConstants.VALUE_ACTION_VALIDATING.equals(action);
+	}
+
+	public boolean isAvailable() {
+		// Stale apps are only kept while the host can't be reached, so there is nothing to act on
+		return enabled && !stale && !isImporting();
+	}
+
+	/**
+	 * Mutable copy of a state, used by the application to create the next one.
+	 */
+	static class Builder {
+		long version = 0;
+		String contextRoot;
+		StartMode startMode = StartMode.RUN;
+		AppState appState = AppState.UNKNOWN;
+		BuildStatus buildStatus = BuildStatus.UNKOWN;
+		String buildDetails;
+		boolean autoBuild = true;
+		boolean enabled = true;
+		String containerId;
+		String action;
+		List<ProjectLogInfo> logInfos = Collections.<ProjectLogInfo>emptyList();
+		boolean metricsAvailable = false;
+		int httpPort = -1, debugPort = -1;
+		boolean stale = false;
+
+		Builder() {}
+
+		Builder(ApplicationState state) {
+			this.version = state.version + 1;
+			this.contextRoot = state.contextRoot;
+			this.startMode = state.startMode;
+			this.appState = state.appState;
+			this.buildStatus = state.buildStatus;
+			this.buildDetails = state.buildDetails;
+			this.autoBuild = state.autoBuild;
+			this.enabled = state.enabled;
+			this.containerId = state.containerId;
+			this.action = state.action;
+			this.logInfos = state.logInfos;
+			this.metricsAvailable = state.metricsAvailable;
+			this.httpPort = state.httpPort;
+			this.debugPort = state.debugPort;
+			this.stale = state.stale;
+		}
+
+		Builder setLogInfos(List<ProjectLogInfo> logInfos) {
+			this.logInfos = Collections.unmodifiableList(new ArrayList<ProjectLogInfo>(logInfos));
+			return this;
+		}
+
+		ApplicationState build(String host) {
+			return new ApplicationState(this, host);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+
+/**
+ * A change to a Microclimate connection.
+ */
+public class ConnectionChangeEvent {
+
+	public enum Field {
+		// Connected or not, and the error message
+		STATUS,
+		// An app was added or removed
+		APPS;
+	}
+
+	public final MicroclimateConnection connection;
+	// Unmodifiable, never empty
+	public final Set<Field> fields;
+
+	public ConnectionChangeEvent(MicroclimateConnection connection, Field field, Field... moreFields) {
+		this.connection = connection;
+		this.fields = Collections.unmodifiableSet(EnumSet.of(field, moreFields));
+	}
+
+	public boolean hasChanged(Field field) {
+		return fields.contains(field);
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionChangeEvent url=" + connection.baseUrl + " fields=" + fields; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.microclimate.core.internal.HttpUtil.HttpStreamResult;
+
+/**
+ * Remembers the validators of the last response that was fully processed for each uri so that
+ * the next GET can be made conditional. If the server sends an ETag or Last-Modified header, then
+ * If-None-Match/If-Modified-Since are sent and a 304 means nothing has changed. If it sends neither,
+ * the body is hashed and compared to the hash of the last processed body instead. The body is hashed
+ * while it is streamed to a temporary file, so it is never held in memory, and the file is only read
+ * back if the content has changed.
+ *
+ * Validators are only stored when the caller calls {@link CachedResult#commit()}, so a response that
+ * was only partly processed is never treated as up to date.
+ */
+public class HttpResponseCache {
+
+	public static final String HEADER_ETAG = "ETag"; //$NON-NLS-1$
+	public static final String HEADER_LAST_MODIFIED = "Last-Modified"; //$NON-NLS-1$
+	public static final String HEADER_IF_NONE_MATCH = "If-None-Match"; //$NON-NLS-1$
+	public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since"; //$NON-NLS-1$
+
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	private static final String TEMP_FILE_PREFIX = "microclimate-response"; //$NON-NLS-1$
+
+	private static class Entry {
+		// Any of these can be null
+		final String etag;
+		final String lastModified;
+		final byte[] contentHash;
+
+		Entry(String etag, String lastModified, byte[] contentHash) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentHash = contentHash;
+		}
+	}
+
+	private final Map<URI, Entry> entries = new ConcurrentHashMap<URI, Entry>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The result of a cached GET. If {@link #isModified} is false there is nothing new to process.
+	 * Must be closed by the caller.
+	 */
+	public class CachedResult implements Closeable {
+		public final boolean isGoodResponse;
+		public final boolean isModified;
+		// Can be null
+		public final String error;
+
+		private final URI uri;
+		private final HttpStreamResult result;
+		// Only set when the body had to be read to compute its hash, deleted on close
+		private final Path contentFile;
+		private final byte[] contentHash;
+		private InputStream contentStream;
+
+		private CachedResult(URI uri, HttpStreamResult result, boolean isModified, Path contentFile, byte[] contentHash) {
+			this.uri = uri;
+			this.result = result;
+			this.isGoodResponse = result.isGoodResponse || result.isNotModified;
+			this.isModified = isModified;
+			this.error = result.error;
+			this.contentFile = contentFile;
+			this.contentHash = contentHash;
+		}
+
+		/**
+		 * @return A reader for the new content, or null if the content has not been modified
+		 * 		or the response was not good.
+		 */
+		public Reader getReader() throws IOException {
+			if (!isModified || !result.isGoodResponse) {
+				return null;
+			}
+			if (contentFile != null) {
+				if (contentStream != null) {
+					contentStream.close();
+				}
+				contentStream = Files.newInputStream(contentFile);
+				return new InputStreamReader(contentStream, result.getCharset());
+			}
+			return result.getReader();
+		}
+
+		/**
+		 * Call once the content has been completely processed so that the next request
+		 * for the same uri can be skipped if nothing has changed.
+		 */
+		public void commit() {
+			if (!isModified || !result.isGoodResponse) {
+				return;
+			}
+			String etag = result.getHeader(HEADER_ETAG);
+			String lastModified = result.getHeader(HEADER_LAST_MODIFIED);
+			if (etag == null && lastModified == null && contentHash == null) {
+				return;
+			}
+			entries.put(uri, new Entry(etag, lastModified, contentHash));
+		}
+
+		@Override
+		public void close() {
+			result.close();
+			if (contentStream != null) {
+				try {
+					contentStream.close();
+				} catch (IOException e) {
+					MCLogger.logError("Failed to close the response content for: " + uri, e); //$NON-NLS-1$
+				}
+			}
+			deleteQuietly(contentFile);
+		}
+	}
+
+	public CachedResult get(URI uri) throws IOException {
+		Entry entry = entries.get(uri);
+		Map<String, String> headers = new HashMap<String, String>();
+		if (entry != null) {
+			if (entry.etag != null) {
+				headers.put(HEADER_IF_NONE_MATCH, entry.etag);
+			}
+			if (entry.lastModified != null) {
+				headers.put(HEADER_IF_MODIFIED_SINCE, entry.lastModified);
+			}
+		}
+
+		HttpStreamResult result = HttpUtil.getStream(uri, headers);
+		try {
+			if (result.isNotModified) {
+				hits.incrementAndGet();
+				return new CachedResult(uri, result, false, null, null);
+			}
+			if (!result.isGoodResponse) {
+				return new CachedResult(uri, result, true, null, null);
+			}
+			if (result.getHeader(HEADER_ETAG) != null || result.getHeader(HEADER_LAST_MODIFIED) != null) {
+				// The validators are enough, stream the body straight to the caller
+				misses.incrementAndGet();
+				return new CachedResult(uri, result, true, null, null);
+			}
+
+			// No validators so compare the content hash
+			return getByContentHash(uri, entry, result);
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	private CachedResult getByContentHash(URI uri, Entry entry, HttpStreamResult result) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			MCLogger.logError("Failed to hash response content", e); //$NON-NLS-1$
+			misses.incrementAndGet();
+			return new CachedResult(uri, result, true, null, null);
+		}
+
+		Path contentFile = Files.createTempFile(TEMP_FILE_PREFIX, null);
+		try {
+			try (InputStream in = result.getInputStream();
+					OutputStream out = Files.newOutputStream(contentFile)) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+					out.write(buffer, 0, read);
+				}
+			}
+			byte[] contentHash = digest.digest();
+			if (entry != null && entry.contentHash != null && Arrays.equals(entry.contentHash, contentHash)) {
+				hits.incrementAndGet();
+				deleteQuietly(contentFile);
+				return new CachedResult(uri, result, false, null, null);
+			}
+			misses.incrementAndGet();
+			return new CachedResult(uri, result, true, contentFile, contentHash);
+		} catch (IOException | RuntimeException e) {
+			deleteQuietly(contentFile);
+			throw e;
+		}
+	}
+
+	/**
+	 * Forget the stored validators for the given uri so the next request fetches it in full.
+	 */
+	public void invalidate(URI uri) {
+		entries.remove(uri);
+	}
+
+	/**
+	 * Forget all stored validators.
+	 */
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * @return The number of requests where the content had not changed.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of good responses that had new content.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			MCLogger.logError("Failed to delete the temporary file: " + file, e); //$NON-NLS-1$
+		}
+	}
+}
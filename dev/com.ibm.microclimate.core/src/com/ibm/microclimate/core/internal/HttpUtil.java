@@ -11,21 +11,87 @@
 
 package com.ibm.microclimate.core.internal;
 
-import java.io.DataOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.json.JSONObject;
 
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
 /**
  * Static utilities to allow easy HTTP communication, and make diagnosing and handling errors a bit easier.
+ *
+ * Requests go through one pooled keep-alive client per host so that repeated calls to the same
+ * Microclimate instance reuse their TCP connections instead of doing a new handshake each time.
  */
 public class HttpUtil {
 
+	private static final int CONNECT_TIMEOUT_SECONDS = 10;
+	private static final int READ_TIMEOUT_SECONDS = 30;
+	private static final int WRITE_TIMEOUT_SECONDS = 30;
+
+	// Bounds for each host's connection pool
+	private static final int MAX_IDLE_CONNECTIONS = 5;
+	private static final int KEEP_ALIVE_MINUTES = 5;
+
+	public static final int HTTP_NOT_MODIFIED = 304;
+
+	private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8"); //$NON-NLS-1$
+	private static final RequestBody EMPTY_BODY = RequestBody.create(null, new byte[0]);
+
+	// Connections that have carried at least one request, used to tell pool hits from new connections
+	private static final Set<Connection> seenConnections =
+			Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Connection, Boolean>()));
+	private static final AtomicLong poolHits = new AtomicLong();
+	private static final AtomicLong poolMisses = new AtomicLong();
+
+	private static final OkHttpClient baseClient = new OkHttpClient.Builder()
+			.connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+			.readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+			.writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+			.addNetworkInterceptor(new Interceptor() {
+				@Override
+				public Response intercept(Chain chain) throws IOException {
+					Connection connection = chain.connection();
+					if (connection != null) {
+						if (seenConnections.add(connection)) {
+							poolMisses.incrementAndGet();
+						} else {
+							poolHits.incrementAndGet();
+						}
+					}
+					return chain.proceed(chain.request());
+				}
+			})
+			.build();
+
+	// Clients keyed by host authority. They share the base client's dispatcher and interceptors
+	// but each has its own bounded connection pool.
+	private static final Map<String, OkHttpClient> clients = new ConcurrentHashMap<String, OkHttpClient>();
+
 	private HttpUtil() {}
 
 	public static class HttpResult {
@@ -36,44 +102,35 @@ public class HttpUtil {
 		public final String response;
 		// Can be null
 		public final String error;
-		
-		private final Map<String, List<String>> headerFields;
 
-		public HttpResult(HttpURLConnection connection) throws IOException {
-			responseCode = connection.getResponseCode();
+		private final Headers headers;
+
+		HttpResult(Response httpResponse) throws IOException {
+			responseCode = httpResponse.code();
 			isGoodResponse = responseCode > 199 && responseCode < 300;
-			
-			headerFields = isGoodResponse ? connection.getHeaderFields() : null;
 
-			// Read error first because sometimes if there is an error, connection.getInputStream() throws an exception
-			InputStream eis = connection.getErrorStream();
-			if (eis != null) {
-				error = MCUtil.readAllFromStream(eis);
-			}
-			else {
-				error = null;
-			}
+			headers = isGoodResponse ? httpResponse.headers() : null;
+
+			// Reading the body fully releases the connection back to the pool
+			ResponseBody body = httpResponse.body();
+			String content = body != null ? body.string() : null;
 
 			if (!isGoodResponse) {
+				error = content;
 				MCLogger.logError("Received bad response code " + responseCode + " from "
-						+ connection.getURL() + " - Error:\n" + error);
+						+ httpResponse.request().url() + " - Error:\n" + error);
 				response = null;
 			} else {
-				InputStream is = connection.getInputStream();
-				if (is != null) {
-					response = MCUtil.readAllFromStream(is);
-				}
-				else {
-					response = null;
-				}
+				error = null;
+				response = content;
 			}
 		}
-		
+
 		public String getHeader(String key) {
-			if (headerFields == null) {
+			if (headers == null) {
 				return null;
 			}
-			List<String> list = headerFields.get(key);
+			List<String> list = headers.values(key);
 			if (list == null || list.isEmpty()) {
 				return null;
 			}
@@ -81,116 +138,206 @@ public class HttpUtil {
 		}
 	}
 
-	public static HttpResult get(URI uri) throws IOException {
-		HttpURLConnection connection = null;
+	/**
+	 * Result of a request whose body is read as a stream instead of being loaded into a String.
+	 * The caller must close it to release the connection back to the pool.
+	 */
+	public static class HttpStreamResult implements Closeable {
+		public final int responseCode;
+		public final boolean isGoodResponse;
+		// The server answered a conditional request with 304, there is no body
+		public final boolean isNotModified;
 
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
+		// Can be null
+		public final String error;
+
+		private final Response httpResponse;
+		private final ResponseBody body;
+		private final Charset charset;
+
+		HttpStreamResult(Response httpResponse) throws IOException {
+			this.httpResponse = httpResponse;
+			responseCode = httpResponse.code();
+			isGoodResponse = responseCode > 199 && responseCode < 300;
+			isNotModified = responseCode == HTTP_NOT_MODIFIED;
 
-			connection.setRequestMethod("GET");
-			connection.setReadTimeout(30000);
+			ResponseBody responseBody = httpResponse.body();
+			MediaType contentType = responseBody != null ? responseBody.contentType() : null;
+			charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
 
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
+			if (isNotModified) {
+				error = null;
+				body = null;
+				httpResponse.close();
+			} else if (!isGoodResponse) {
+				// Error bodies are small, so read them up front and release the connection
+				error = responseBody != null ? responseBody.string() : null;
+				MCLogger.logError("Received bad response code " + responseCode + " from "
+						+ httpResponse.request().url() + " - Error:\n" + error);
+				body = null;
+				httpResponse.close();
+			} else {
+				error = null;
+				body = responseBody;
 			}
 		}
+
+		public String getHeader(String key) {
+			return isGoodResponse || isNotModified ? httpResponse.header(key) : null;
+		}
+
+		/**
+		 * @return The charset the body is encoded in, from the Content-Type header. Defaults to UTF-8.
+		 */
+		public Charset getCharset() {
+			return charset;
+		}
+
+		/**
+		 * @return The raw response body, or null if the response was not good.
+		 */
+		public InputStream getInputStream() {
+			return body != null ? body.byteStream() : null;
+		}
+
+		/**
+		 * @return A reader that decodes the response body using {@link #getCharset()},
+		 * 		or null if the response was not good.
+		 */
+		public Reader getReader() {
+			return body != null ? new InputStreamReader(body.byteStream(), charset) : null;
+		}
+
+		@Override
+		public void close() {
+			httpResponse.close();
+		}
 	}
-	
-	public static HttpResult post(URI uri, JSONObject payload) throws IOException {
-		HttpURLConnection connection = null;
 
-		MCLogger.log("POST " + payload.toString() + " TO " + uri);
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
-
-			connection.setRequestMethod("POST");
-			connection.setReadTimeout(30000);
-			
-			if (payload != null) {
-				connection.setRequestProperty("Content-Type", "application/json");
-				connection.setDoOutput(true);
-	
-				DataOutputStream payloadStream = new DataOutputStream(connection.getOutputStream());
-				payloadStream.write(payload.toString().getBytes());
-			}
+	public static HttpResult get(URI uri) throws IOException {
+		return execute(uri, new Request.Builder().get());
+	}
 
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
+	/**
+	 * GET the given uri without reading the response body. The result must be closed by the caller.
+	 */
+	public static HttpStreamResult getStream(URI uri) throws IOException {
+		return getStream(uri, null);
+	}
+
+	/**
+	 * GET the given uri with extra request headers, such as the validators for a conditional request,
+	 * without reading the response body. The result must be closed by the caller.
+	 */
+	public static HttpStreamResult getStream(URI uri, Map<String, String> requestHeaders) throws IOException {
+		Request.Builder requestBuilder = new Request.Builder().get().url(uri.toURL());
+		if (requestHeaders != null) {
+			for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+				requestBuilder.header(header.getKey(), header.getValue());
 			}
 		}
+		Request request = requestBuilder.build();
+		Response response = getClient(uri).newCall(request).execute();
+		try {
+			return new HttpStreamResult(response);
+		} catch (IOException | RuntimeException e) {
+			response.close();
+			throw e;
+		}
+	}
+
+	public static HttpResult post(URI uri, JSONObject payload) throws IOException {
+		MCLogger.log("POST " + payload + " TO " + uri);
+		RequestBody body = payload != null ? RequestBody.create(JSON_MEDIA_TYPE, payload.toString()) : EMPTY_BODY;
+		return execute(uri, new Request.Builder().post(body));
 	}
-	
-	public static HttpResult post(URI uri) throws IOException {
-		HttpURLConnection connection = null;
 
+	public static HttpResult post(URI uri) throws IOException {
 		MCLogger.log("Empty POST TO " + uri);
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
-			connection.setRequestMethod("POST");
-			connection.setReadTimeout(30000);
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
-			}
-		}
+		return execute(uri, new Request.Builder().post(EMPTY_BODY));
 	}
-	
-	public static HttpResult put(URI uri) throws IOException {
-		HttpURLConnection connection = null;
 
+	public static HttpResult put(URI uri) throws IOException {
 		MCLogger.log("PUT " + uri);
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
+		return execute(uri, new Request.Builder().put(EMPTY_BODY));
+	}
 
-			connection.setRequestMethod("PUT");
-			connection.setReadTimeout(30000);
+	public static HttpResult head(URI uri) throws IOException {
+		MCLogger.log("HEAD " + uri);
+		return execute(uri, new Request.Builder().head());
+	}
 
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
-			}
+	/**
+	 * HEAD the given uri, giving up if it does not connect or respond within the timeout.
+	 */
+	public static HttpResult head(URI uri, int timeoutMs) throws IOException {
+		Request request = new Request.Builder().head().url(uri.toURL()).build();
+		// The derived client shares the host's connection pool
+		OkHttpClient client = getClient(uri).newBuilder()
+				.connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+				.readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+				.build();
+		try (Response response = client.newCall(request).execute()) {
+			return new HttpResult(response);
 		}
 	}
-	
-	public static HttpResult head(URI uri) throws IOException {
-		HttpURLConnection connection = null;
 
-		MCLogger.log("HEAD " + uri);
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
+	public static HttpResult delete(URI uri) throws IOException {
+		MCLogger.log("DELETE " + uri);
+		return execute(uri, new Request.Builder().delete());
+	}
 
-			connection.setRequestMethod("HEAD");
-			connection.setReadTimeout(30000);
+	private static HttpResult execute(URI uri, Request.Builder requestBuilder) throws IOException {
+		Request request = requestBuilder.url(uri.toURL()).build();
+		try (Response response = getClient(uri).newCall(request).execute()) {
+			return new HttpResult(response);
+		}
+	}
 
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
+	private static OkHttpClient getClient(URI uri) {
+		String key = uri.getAuthority();
+		if (key == null) {
+			return baseClient;
+		}
+		OkHttpClient client = clients.get(key);
+		if (client == null) {
+			client = baseClient.newBuilder()
+					.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+					.build();
+			OkHttpClient existing = clients.putIfAbsent(key, client);
+			if (existing != null) {
+				client = existing;
 			}
 		}
+		return client;
 	}
-	
-	public static HttpResult delete(URI uri) throws IOException {
-		HttpURLConnection connection = null;
 
-		MCLogger.log("DELETE " + uri);
-		try {
-			connection = (HttpURLConnection) uri.toURL().openConnection();
+	/**
+	 * Close any idle pooled connections to the host of the given uri and drop its client.
+	 * Call this when the connection to that host is removed.
+	 */
+	public static void evictConnections(URI uri) {
+		String key = uri.getAuthority();
+		if (key == null) {
+			return;
+		}
+		OkHttpClient client = clients.remove(key);
+		if (client != null) {
+			client.connectionPool().evictAll();
+		}
+	}
 
-			connection.setRequestMethod("DELETE");
-			connection.setReadTimeout(30000);
+	/**
+	 * @return The number of requests that were sent on an already open, pooled connection.
+	 */
+	public static long getPoolHitCount() {
+		return poolHits.get();
+	}
 
-			return new HttpResult(connection);
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
-			}
-		}
+	/**
+	 * @return The number of requests that needed a new connection.
+	 */
+	public static long getPoolMissCount() {
+		return poolMisses.get();
 	}
 }
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+/**
+ * Notified when a Microclimate application or connection changes. Events are only sent
+ * when a value actually changes, and say which fields changed.
+ *
+ * Listeners are called on the thread that made the change, which is often a socket
+ * event thread, and possibly while the changed object is locked. They must not block
+ * or change the model, anything more than recording the change should be scheduled.
+ */
+public interface IModelChangeListener {
+
+	public void applicationChanged(ApplicationChangeEvent event);
+
+	public void connectionChanged(ConnectionChangeEvent event);
+
+}
@@ -63,6 +63,13 @@ public class MCLogger implements DebugOptionsListener {
 		logInfo = debugOptions.getBooleanOption(MicroclimateCorePlugin.PLUGIN_ID + INFO_LEVEL, false);
 	}
 
+	/**
+	 * @return true if info messages are being logged. Check this before building an expensive message.
+	 */
+	public static boolean isInfoEnabled() {
+		return logInfo;
+	}
+
 	public static void log(String msg) {
 		writeLog(msg, false, null);
 	}
@@ -11,11 +11,15 @@
 
 package com.ibm.microclimate.core.internal;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Scanner;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -60,12 +64,21 @@ public class MCUtil {
 
 
 	public static String readAllFromStream(InputStream stream) {
-		Scanner s = new Scanner(stream);
-		// end-of-stream
-		s.useDelimiter("\\A"); //$NON-NLS-1$
-		String result = s.hasNext() ? s.next() : ""; //$NON-NLS-1$
-		s.close();
-		return result;
+		return readAllFromStream(stream, StandardCharsets.UTF_8);
+	}
+
+	public static String readAllFromStream(InputStream stream, Charset charset) {
+		StringBuilder result = new StringBuilder();
+		char[] buffer = new char[8192];
+		try (Reader reader = new InputStreamReader(stream, charset)) {
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				result.append(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			MCLogger.logError("Error reading from stream", e); //$NON-NLS-1$
+		}
+		return result.toString();
 	}
 
 	public static boolean isWindows() {
@@ -167,6 +180,32 @@ public class MCUtil {
 		}
 	}
 
+	/**
+	 * Notify the model change listeners that an application changed
+	 */
+	public static void fireApplicationChanged(ApplicationChangeEvent event) {
+		for (IModelChangeListener listener : MicroclimateCorePlugin.getModelChangeListeners()) {
+			try {
+				listener.applicationChanged(event);
+			} catch (Exception e) {
+				MCLogger.logError("A model change listener failed for: " + event, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Notify the model change listeners that a connection changed
+	 */
+	public static void fireConnectionChanged(ConnectionChangeEvent event) {
+		for (IModelChangeListener listener : MicroclimateCorePlugin.getModelChangeListeners()) {
+			try {
+				listener.connectionChanged(event);
+			} catch (Exception e) {
+				MCLogger.logError("A model change listener failed for: " + event, e); //$NON-NLS-1$
+			}
+		}
+	}
+
     public static String getOSName() {
         return (String)System.getProperty("os.name");
     }
@@ -15,15 +15,18 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.IPath;
-import org.json.JSONObject;
 
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
 import com.ibm.microclimate.core.internal.constants.AppState;
 import com.ibm.microclimate.core.internal.constants.BuildStatus;
-import com.ibm.microclimate.core.internal.constants.MCConstants;
 import com.ibm.microclimate.core.internal.constants.ProjectCapabilities;
 import com.ibm.microclimate.core.internal.constants.ProjectType;
 import com.ibm.microclimate.core.internal.constants.StartMode;
@@ -38,25 +41,23 @@ public class MicroclimateApplication {
 	public final IPath fullLocalPath;
 	public final ProjectType projectType;
 
-	private String contextRoot;	// can be null
-	private StartMode startMode;
-	private AppState appState;
-	private BuildStatus buildStatus;
-	private String buildDetails;
-	private boolean autoBuild = true;
-	private boolean enabled = true;
-	private String containerId;
-	private ProjectCapabilities projectCapabilities;
-	private String action;
-	private List<ProjectLogInfo> logInfos = new ArrayList<ProjectLogInfo>();
-	private boolean metricsAvailable = false;
-
-	// Must be updated whenever httpPort changes. Can be null
-	private URL baseUrl;
-
-	// These are set by the MicroclimateSocket so we have to make sure the reads and writes are synchronized
-	// An httpPort of -1 indicates the app is not started - could be building or disabled.
-	private int httpPort = -1, debugPort = -1;
+	// The current state. Writers are synchronized on this and publish a new state for each change,
+	// readers just get the reference.
+	private final AtomicReference<ApplicationState> state;
+	// Completed once the capabilities are known. They do not change so they are only fetched once.
+	private final CompletableFuture<ProjectCapabilities> projectCapabilities = new CompletableFuture<ProjectCapabilities>();
+	private final AtomicBoolean capabilitiesFetching = new AtomicBoolean();
+
+	private volatile boolean disposed = false;
+
+	// Incremented each time the log list and metrics status are requested so that late results can be ignored
+	final AtomicLong detailsRequest = new AtomicLong();
+
+	// The project json last applied to this app and the number of changes at the time, so that an
+	// unchanged project can be recognized when reconnecting. Guarded by this.
+	private int modCount = 0;
+	private String appliedJson;
+	private int appliedModCount = -1;
 
 	MicroclimateApplication(MicroclimateConnection mcConnection,
 			String id, String name, ProjectType projectType, String pathInWorkspace)
@@ -72,204 +73,333 @@ public class MicroclimateApplication {
 		// and the path passed here will start with /microclimate-workspace, so here we fix the duplication.
 		this.fullLocalPath = MCUtil.appendPathWithoutDupe(mcConnection.getWorkspacePath(), pathInWorkspace);
 
-		this.startMode = StartMode.RUN;
-		this.appState = AppState.UNKNOWN;
-		this.buildStatus = BuildStatus.UNKOWN;
+		this.state = new AtomicReference<ApplicationState>(ApplicationState.initial(host));
 	}
 
-	private void setBaseUrl() throws MalformedURLException {
-		if (httpPort == -1) {
-			MCLogger.log("Un-setting baseUrl because httpPort is not valid"); //$NON-NLS-1$
-			baseUrl = null;
-			return;
-		}
-
-		baseUrl = new URL("http", host, httpPort, ""); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * @return The current state of the app. It does not change, so all of its values are consistent
+	 * with each other.
+	 */
+	public ApplicationState getState() {
+		return state.get();
+	}
 
-		if (contextRoot != null && !contextRoot.isEmpty()) {
-			baseUrl = new URL(baseUrl, contextRoot);
+	/**
+	 * Publish the next state. Nothing is published if no value changed. Must hold the lock.
+	 * 
+	 * @return The event for the model change listeners, or null if nothing changed. Fire it with
+	 * 		{@link #fire(ApplicationChangeEvent)} after releasing the lock.
+	 */
+	private ApplicationChangeEvent publish(ApplicationState.Builder builder) {
+		ApplicationState oldState = state.get();
+		ApplicationState newState = builder.build(host);
+		Set<ApplicationChangeEvent.Field> fields = ApplicationChangeEvent.diff(oldState, newState);
+		if (fields.isEmpty()) {
+			return null;
 		}
+		state.set(newState);
+		return new ApplicationChangeEvent(this, oldState, newState, fields);
 	}
-	
-	public synchronized void setAppStatus(String appStatus) {
-		this.appState = AppState.get(appStatus);
+
+	/**
+	 * Tell the model change listeners about a published change. Must not hold the lock, since
+	 * listeners can take other locks or wait for the UI thread. Events for an app can arrive out
+	 * of order, so listeners can compare {@link ApplicationState#version} to drop older ones.
+	 */
+	private static void fire(ApplicationChangeEvent event) {
+		if (event != null) {
+			MCUtil.fireApplicationChanged(event);
+		}
 	}
-	
-	public synchronized void setBuildStatus(String buildStatus, String buildDetails) {
-		if (buildStatus != null) {
-			BuildStatus newStatus = BuildStatus.get(buildStatus);
-			boolean hasChanged = newStatus != this.buildStatus;
-			this.buildStatus = newStatus;
-			if (buildDetails != null && buildDetails.trim().isEmpty()) {
-				this.buildDetails = null;
-			} else {
-				this.buildDetails = buildDetails;
-			}
-			if (hasChanged && newStatus.isComplete()) {
-				buildComplete();
+
+	public void setAppStatus(String appStatus) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.appState = AppState.get(appStatus);
+			event = publish(builder);
+		}
+		fire(event);
+	}
+	
+	public void setBuildStatus(String buildStatus, String buildDetails) {
+		ApplicationChangeEvent event = null;
+		synchronized(this) {
+			modCount++;
+			if (buildStatus != null) {
+				ApplicationState.Builder builder = state.get().edit();
+				BuildStatus newStatus = BuildStatus.get(buildStatus);
+				boolean hasChanged = newStatus != builder.buildStatus;
+				builder.buildStatus = newStatus;
+				if (buildDetails != null && buildDetails.trim().isEmpty()) {
+					builder.buildDetails = null;
+				} else {
+					builder.buildDetails = buildDetails;
+				}
+				event = publish(builder);
+				if (hasChanged && newStatus.isComplete()) {
+					buildComplete();
+				}
 			}
 		}
+		fire(event);
 	}
 	
-	public synchronized void setContextRoot(String contextRoot) {
-		this.contextRoot = contextRoot;
-		try {
-			setBaseUrl();
-		} catch (MalformedURLException e) {
-			MCLogger.logError("An error occurred updating the base url with the new context root: " + contextRoot, e);
+	public void setContextRoot(String contextRoot) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.contextRoot = contextRoot;
+			event = publish(builder);
 		}
+		fire(event);
 	}
 	
-	public synchronized void setStartMode(StartMode startMode) {
-		this.startMode = startMode;
-	}
-	
-	public synchronized void setAutoBuild(boolean enabled) {
-		this.autoBuild = enabled;
+	public void setStartMode(StartMode startMode) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.startMode = startMode;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 	
-	public synchronized void setEnabled(boolean enabled) {
-		boolean reenabled = enabled && !this.enabled;
-		this.enabled = enabled;
+	public void setAutoBuild(boolean enabled) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.autoBuild = enabled;
+			event = publish(builder);
+		}
+		fire(event);
+	}
+	
+	public void setEnabled(boolean enabled) {
+		boolean reenabled;
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			ApplicationState.Builder builder = state.get().edit();
+			reenabled = enabled && !builder.enabled;
+			builder.enabled = enabled;
+			modCount++;
+			event = publish(builder);
+		}
+		fire(event);
+		// Refresh outside of the lock since refreshApps may wait for another thread that is updating this app
 		if (reenabled) {
 			mcConnection.refreshApps(projectID);
-			MCUtil.updateApplication(this);
 		}
 	}
 	
-	public synchronized void setContainerId(String id) {
-		this.containerId = id;
+	public void setContainerId(String id) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.containerId = id;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 	
-	public synchronized void setAction(String action) {
-		this.action = action;
+	public void setAction(String action) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			builder.action = action;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 	
-	public synchronized void addLogInfos(List<ProjectLogInfo> newLogInfos) {
-		if (newLogInfos == null || newLogInfos.isEmpty()) {
-			MCLogger.logError("Trying to add empty log infos to project: " + name);
-			return;
-		}
-		if (this.logInfos == null || this.logInfos.isEmpty()) {
-			this.logInfos = newLogInfos;
-			return;
-		}
-		for (ProjectLogInfo newLogInfo : newLogInfos) {
-			boolean found = false;
-			for (ProjectLogInfo logInfo : this.logInfos) {
-				// There should not be more than one log with the same name for a project
-				if (logInfo.logName.equals(newLogInfo.logName)) {
-					found = true;
-					break;
-				}
+	public void addLogInfos(List<ProjectLogInfo> newLogInfos) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			if (newLogInfos == null || newLogInfos.isEmpty()) {
+				MCLogger.logError("Trying to add empty log infos to project: " + name);
+				return;
 			}
-			if (!found) {
-				this.logInfos.add(newLogInfo);
+			ApplicationState.Builder builder = state.get().edit();
+			List<ProjectLogInfo> logInfos = new ArrayList<ProjectLogInfo>(builder.logInfos);
+			for (ProjectLogInfo newLogInfo : newLogInfos) {
+				boolean found = false;
+				for (ProjectLogInfo logInfo : logInfos) {
+					// There should not be more than one log with the same name for a project
+					if (logInfo.logName.equals(newLogInfo.logName)) {
+						found = true;
+						break;
+					}
+				}
+				if (!found) {
+					logInfos.add(newLogInfo);
+				}
 			}
+			event = publish(builder.setLogInfos(logInfos));
 		}
+		fire(event);
 	}
 	
-	public synchronized void setLogInfos(List<ProjectLogInfo> logInfos) {
-		if (logInfos == null) {
-			MCLogger.logError("The logs should not be set to null for project: " + name);
-			return;
+	public void setLogInfos(List<ProjectLogInfo> logInfos) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			if (logInfos == null) {
+				MCLogger.logError("The logs should not be set to null for project: " + name);
+				return;
+			}
+			event = publish(state.get().edit().setLogInfos(logInfos));
 		}
-		this.logInfos = logInfos;
+		fire(event);
 	}
 	
-	public synchronized void setMetricsAvailable(boolean value) {
-		metricsAvailable = value;
+	public void setMetricsAvailable(boolean value) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			ApplicationState.Builder builder = state.get().edit();
+			builder.metricsAvailable = value;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 	
+	public boolean isStale() {
+		return state.get().stale;
+	}
+
+	public void setStale(boolean stale) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			ApplicationState.Builder builder = state.get().edit();
+			builder.stale = stale;
+			event = publish(builder);
+		}
+		fire(event);
+	}
+
+	/**
+	 * Record the project json that was just applied to this app.
+	 */
+	synchronized void setAppliedJson(String json) {
+		appliedJson = json;
+		appliedModCount = modCount;
+	}
+
+	/**
+	 * @return true if the given project json is the one last applied and nothing has changed the app since.
+	 */
+	synchronized boolean isAppliedJson(String json) {
+		return appliedModCount == modCount && json.equals(appliedJson);
+	}
+
 	/**
 	 * Can return null if this project hasn't started yet (ie httpPort == -1)
 	 */
 	public URL getBaseUrl() {
-		return baseUrl;
+		return state.get().baseUrl;
 	}
 	
-	public synchronized AppState getAppState() {
-		return appState;
+	public AppState getAppState() {
+		return state.get().appState;
 	}
 	
-	public synchronized BuildStatus getBuildStatus() {
-		return buildStatus;
+	public BuildStatus getBuildStatus() {
+		return state.get().buildStatus;
 	}
 	
-	public synchronized String getBuildDetails() {
-		return buildDetails;
+	public String getBuildDetails() {
+		return state.get().buildDetails;
+	}
+
+	public String getContextRoot() {
+		return state.get().contextRoot;
 	}
 
-	public synchronized int getHttpPort() {
-		return httpPort;
+	public int getHttpPort() {
+		return state.get().httpPort;
 	}
 
-	public synchronized int getDebugPort() {
-		return debugPort;
+	public int getDebugPort() {
+		return state.get().debugPort;
 	}
 
-	public synchronized StartMode getStartMode() {
-		return startMode;
+	public StartMode getStartMode() {
+		return state.get().startMode;
 	}
 	
-	public synchronized boolean isAutoBuild() {
-		return autoBuild;
+	public boolean isAutoBuild() {
+		return state.get().autoBuild;
 	}
 	
-	public synchronized boolean isEnabled() {
-		return enabled;
+	public boolean isEnabled() {
+		return state.get().enabled;
 	}
 	
-	public synchronized String getContainerId() {
-		return containerId;
+	public String getContainerId() {
+		return state.get().containerId;
 	}
 	
 	public boolean isActive() {
-		return getAppState() == AppState.STARTING || getAppState() == AppState.STARTED;
+		return state.get().isActive();
 	}
 
 	public boolean isRunning() {
-		return baseUrl != null;
+		return state.get().isRunning();
 	}
 	
 	public boolean isDeleting() {
-		return MCConstants.VALUE_ACTION_DELETING.equals(action);
+		return state.get().isDeleting();
 	}
 	
 	public boolean isImporting() {
-		// The action value is called "validating" but really this means the project is importing
-		return MCConstants.VALUE_ACTION_VALIDATING.equals(action);
+		return state.get().isImporting();
 	}
 	
 	public boolean isAvailable() {
-		return isEnabled() && !isImporting();
+		return state.get().isAvailable();
 	}
 	
+	/**
+	 * @return An unmodifiable list of the logs for this app.
+	 */
 	public List<ProjectLogInfo> getLogInfos() {
-		return logInfos;
+		return state.get().logInfos;
 	}
 
 	public boolean hasBuildLog() {
 		return (!projectType.isType(ProjectType.TYPE_NODEJS));
 	}
 	
-	public synchronized boolean getMetricsAvailable() {
-		return metricsAvailable;
+	public boolean getMetricsAvailable() {
+		return state.get().metricsAvailable;
 	}
 
-	public synchronized void setHttpPort(int httpPort) {
-		MCLogger.log("Set HTTP port for " + baseUrl + " to " + httpPort); //$NON-NLS-1$ //$NON-NLS-2$
-		this.httpPort = httpPort;
-		try {
-			setBaseUrl();
-		} catch (MalformedURLException e) {
-			MCLogger.logError(e);
+	public void setHttpPort(int httpPort) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			MCLogger.log("Set HTTP port for " + state.get().baseUrl + " to " + httpPort); //$NON-NLS-1$ //$NON-NLS-2$
+			builder.httpPort = httpPort;
+			event = publish(builder);
 		}
+		fire(event);
 	}
 
-	public synchronized void setDebugPort(int debugPort) {
-		MCLogger.log("Set debug port for " + baseUrl + " to " + debugPort); //$NON-NLS-1$ //$NON-NLS-2$
-		this.debugPort = debugPort;
+	public void setDebugPort(int debugPort) {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			ApplicationState.Builder builder = state.get().edit();
+			MCLogger.log("Set debug port for " + state.get().baseUrl + " to " + debugPort); //$NON-NLS-1$ //$NON-NLS-2$
+			builder.debugPort = debugPort;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 
 	/**
@@ -278,31 +408,67 @@ public class MicroclimateApplication {
 	 * This is done because the application will wait for the ports to be
 	 * set to something other than -1 before trying to connect.
 	 */
-	public synchronized void invalidatePorts() {
-		MCLogger.log("Invalidate ports for " + name); //$NON-NLS-1$
-		httpPort = -1;
-		debugPort = -1;
+	public void invalidatePorts() {
+		ApplicationChangeEvent event;
+		synchronized(this) {
+			modCount++;
+			MCLogger.log("Invalidate ports for " + name); //$NON-NLS-1$
+			ApplicationState.Builder builder = state.get().edit();
+			builder.httpPort = -1;
+			builder.debugPort = -1;
+			event = publish(builder);
+		}
+		fire(event);
 	}
 
 	/**
-	 * Get the capabilities of a project.  Cache them because they should not change
-	 * and since they are used to decide which menu items are shown/enabled this method
-	 * needs to be fast.
+	 * Get the capabilities of a project. They are used to decide which menu items are shown/enabled
+	 * so this method does not wait: until the capabilities have been fetched in the background it
+	 * returns empty capabilities, which disable anything that depends on them.
 	 */
 	public ProjectCapabilities getProjectCapabilities() {
-		if (projectCapabilities == null) {
-			try {
-				JSONObject obj = mcConnection.requestProjectCapabilities(this);
-				projectCapabilities = new ProjectCapabilities(obj);
-			} catch (Exception e) {
-				MCLogger.logError("Failed to get the project capabilities for application: " + name, e); //$NON-NLS-1$
-			}
-		}
-		if (projectCapabilities == null) {
+		ProjectCapabilities capabilities = projectCapabilities.getNow(null);
+		if (capabilities == null) {
+			fetchProjectCapabilities();
 			return ProjectCapabilities.emptyCapabilities;
 		}
+		return capabilities;
+	}
+	
+	/**
+	 * @return The capabilities if they have already been fetched, otherwise null.
+	 */
+	public ProjectCapabilities getCachedProjectCapabilities() {
+		return projectCapabilities.getNow(null);
+	}
+
+	/**
+	 * @return A future that completes when the capabilities are known.
+	 */
+	public CompletableFuture<ProjectCapabilities> getProjectCapabilitiesFuture() {
+		fetchProjectCapabilities();
 		return projectCapabilities;
 	}
+
+	/**
+	 * Use capabilities that are already known, for example from the connection snapshot.
+	 */
+	public void setProjectCapabilities(ProjectCapabilities capabilities) {
+		projectCapabilities.complete(capabilities);
+	}
+
+	/**
+	 * Fetch the capabilities in the background if they are not known and are not already being fetched.
+	 */
+	public void fetchProjectCapabilities() {
+		if (!projectCapabilities.isDone() && capabilitiesFetching.compareAndSet(false, true)) {
+			ProjectCapabilitiesFetcher.fetch(this);
+		}
+	}
+
+	void capabilitiesFetchDone() {
+		capabilitiesFetching.set(false);
+	}
 	
 	public void clearDebugger() {
 		// Override as needed
@@ -317,7 +483,12 @@ public class MicroclimateApplication {
 	}
 
 	public void dispose() {
-		// Override as needed
+		// Override as needed, calling super
+		disposed = true;
+	}
+
+	public boolean isDisposed() {
+		return disposed;
 	}
 	
 	public void resetValidation() {
@@ -344,7 +515,7 @@ public class MicroclimateApplication {
 	@Override
 	public String toString() {
 		return String.format("%s@%s id=%s name=%s type=%s loc=%s", //$NON-NLS-1$
-				MicroclimateApplication.class.getSimpleName(), baseUrl.toString(),
+				MicroclimateApplication.class.getSimpleName(), getBaseUrl(),
 				projectID, name, projectType, fullLocalPath.toOSString());
 	}
 }
@@ -11,14 +11,25 @@
 
 package com.ibm.microclimate.core.internal;
 
+import java.io.Reader;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot;
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot.AppSnapshot;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
@@ -26,6 +37,25 @@ import com.ibm.microclimate.core.internal.constants.ProjectType;
 import com.ibm.microclimate.core.internal.constants.StartMode;
 
 public class MicroclimateApplicationFactory {
+
+	// Bounds the number of log list and metrics requests that run at the same time
+	private static final int MAX_DETAILS_THREADS = 4;
+
+	private static final ExecutorService detailsExecutor;
+	static {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_DETAILS_THREADS, MAX_DETAILS_THREADS,
+				30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Microclimate app details " + count.incrementAndGet()); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		detailsExecutor = executor;
+	}
 	
 	/**
 	 * Process the json for all projects, create or update applications as needed.
@@ -40,32 +70,80 @@ public class MicroclimateApplicationFactory {
 	public static void getAppsFromProjectsJson(MicroclimateConnection mcConnection,
 			String projectsJson, String projectID) {
 
+		JSONArray appArray;
 		try {
 			MCLogger.log(projectsJson);
-			JSONArray appArray = new JSONArray(projectsJson);
+			appArray = new JSONArray(projectsJson);
+		} catch (Exception e) {
+			MCLogger.logError("Error parsing json for project array.", e); //$NON-NLS-1$
+			return;
+		}
+		getAppsFromProjectsArray(mcConnection, appArray, projectID == null ? null : Collections.singleton(projectID));
+	}
+
+	/**
+	 * Parse the projects json straight from the reader for the given projectIDs or all projects
+	 * if projectIDs is null. The reader is not closed.
+	 * 
+	 * @return true if the json was processed, false if it could not be parsed.
+	 */
+	public static boolean getAppsFromProjectsJson(MicroclimateConnection mcConnection,
+			Reader projectsReader, Set<String> projectIDs) {
+
+		JSONArray appArray;
+		try {
+			appArray = new JSONArray(new JSONTokener(projectsReader));
+		} catch (Exception e) {
+			MCLogger.logError("Error parsing json for project array.", e); //$NON-NLS-1$
+			return false;
+		}
+		MCLogger.log("Received " + appArray.length() + " projects from " + mcConnection.baseUrl); //$NON-NLS-1$ //$NON-NLS-2$
+		return getAppsFromProjectsArray(mcConnection, appArray, projectIDs);
+	}
+
+	private static boolean getAppsFromProjectsArray(MicroclimateConnection mcConnection,
+			JSONArray appArray, Set<String> projectIDs) {
+
+		try {
 			Set<String> idSet = new HashSet<String>();
+			int unchangedCount = 0;
 	
 			for(int i = 0; i < appArray.length(); i++) {
 				JSONObject appJso = appArray.getJSONObject(i);
 				try {
 					String id = appJso.getString(MCConstants.KEY_PROJECT_ID);
 					idSet.add(id);
-					// If a project id was passed in then only process the JSON object for that project
-					if (projectID == null || projectID.equals(id)) {
-						synchronized(MicroclimateApplicationFactory.class) {
+					// If project ids were passed in then only process the JSON objects for those projects
+					if (projectIDs == null || projectIDs.contains(id)) {
+						// Only updates to the same project need to wait for each other
+						mcConnection.lockApp(id);
+						try {
 							MicroclimateApplication app = mcConnection.getAppByID(id);
+							String json = appJso.toString();
 							if (app != null) {
-								updateApp(app, appJso);
-								if (app.isDeleting()) {
-									// Remove the app from the list
-									mcConnection.removeApp(id);
+								if (app.isStale() && app.isAppliedJson(json)) {
+									// Kept while disconnected and nothing has changed since
+									unchangedCount++;
+								} else {
+									updateApp(app, appJso);
+									app.setAppliedJson(json);
+									if (app.isDeleting()) {
+										// Remove the app from the list
+										mcConnection.removeApp(id);
+									}
 								}
+								app.setStale(false);
 							} else {
 								app = createApp(mcConnection, appJso);
 								if (app != null && !app.isDeleting()) {
+									app.setAppliedJson(json);
 									mcConnection.addApp(app);
+									// Does nothing if the capabilities came from the snapshot
+									app.fetchProjectCapabilities();
 								}
 							}
+						} finally {
+							mcConnection.unlockApp(id);
 						}
 					}
 				} catch (Exception e) {
@@ -76,16 +154,21 @@ public class MicroclimateApplicationFactory {
 			// If refreshing all of the projects, remove any projects that are not in the list returned by Microclimate.
 			// This will only happen if something goes wrong and no delete event is received from Microclimate for a
 			// project.
-			if (projectID == null) {
+			if (projectIDs == null) {
 				for (String id : mcConnection.getAppIds()) {
 					if (!idSet.contains(id)) {
 						mcConnection.removeApp(id);
 					}
 				}
 			}
+			if (unchangedCount > 0) {
+				MCLogger.log(unchangedCount + " projects were unchanged after reconnecting to " + mcConnection.baseUrl); //$NON-NLS-1$
+			}
 		} catch (Exception e) {
 			MCLogger.logError("Error parsing json for project array.", e); //$NON-NLS-1$
+			return false;
 		}
+		return true;
 	}
 	
 	/**
@@ -116,6 +199,13 @@ public class MicroclimateApplicationFactory {
 			
 			MicroclimateApplication mcApp = MicroclimateObjectFactory.createMicroclimateApplication(mcConnection, id, name, type, loc);
 			
+			// The capabilities do not change so reuse them from the snapshot if they are there
+			AppSnapshot snapshot = ConnectionSnapshot.getApp(mcConnection.toPrefsString(), id);
+			// Otherwise they are fetched once the app has been added to the connection
+			if (snapshot != null && snapshot.capabilities != null) {
+				mcApp.setProjectCapabilities(snapshot.capabilities);
+			}
+			
 			updateApp(mcApp, appJso);
 			return mcApp;
 		} catch(JSONException e) {
@@ -239,25 +329,56 @@ public class MicroclimateApplicationFactory {
 			MCLogger.logError("Error parsing project json: " + appJso, e); //$NON-NLS-1$
 		}
 		
-		try {
-			// Set the log information
-			List<ProjectLogInfo> logInfos = mcApp.mcConnection.requestProjectLogs(mcApp);
-			mcApp.setLogInfos(logInfos);
-		} catch (Exception e) {
-			MCLogger.logError("An error occurred while updating the log information for project: " + mcApp.name, e);
-		}
-		
-		// Check for metrics support
-		boolean metricsAvailable = true;
-		try {
-			JSONObject obj = mcApp.mcConnection.requestProjectMetricsStatus(mcApp);
-			if (obj != null && obj.has(MCConstants.KEY_METRICS_AVAILABLE)) {
-				metricsAvailable = obj.getBoolean(MCConstants.KEY_METRICS_AVAILABLE);
+		// The log list and metrics flag each need another request so fetch them in the background
+		requestAppDetails(mcApp);
+	}
+
+	/**
+	 * Fetch the log list and metrics status for the application on the details executor and
+	 * apply them when they arrive. Results are dropped if the details were requested again
+	 * in the meantime, so a slow response cannot overwrite a newer one.
+	 */
+	private static void requestAppDetails(final MicroclimateApplication mcApp) {
+		final long request = mcApp.detailsRequest.incrementAndGet();
+
+		detailsExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (request != mcApp.detailsRequest.get()) {
+					return;
+				}
+				try {
+					// Set the log information
+					List<ProjectLogInfo> logInfos = mcApp.mcConnection.requestProjectLogs(mcApp);
+					if (request == mcApp.detailsRequest.get()) {
+						mcApp.setLogInfos(logInfos);
+					}
+				} catch (Exception e) {
+					MCLogger.logError("An error occurred while updating the log information for project: " + mcApp.name, e);
+				}
 			}
-		} catch (Exception e) {
-			MCLogger.logError("An error occurred checking if metrics are available: " + mcApp.name, e);
-		}
-		mcApp.setMetricsAvailable(metricsAvailable);
-		
+		});
+
+		detailsExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (request != mcApp.detailsRequest.get()) {
+					return;
+				}
+				// Check for metrics support
+				boolean metricsAvailable = true;
+				try {
+					JSONObject obj = mcApp.mcConnection.requestProjectMetricsStatus(mcApp);
+					if (obj != null && obj.has(MCConstants.KEY_METRICS_AVAILABLE)) {
+						metricsAvailable = obj.getBoolean(MCConstants.KEY_METRICS_AVAILABLE);
+					}
+				} catch (Exception e) {
+					MCLogger.logError("An error occurred checking if metrics are available: " + mcApp.name, e);
+				}
+				if (request == mcApp.detailsRequest.get()) {
+					mcApp.setMetricsAvailable(metricsAvailable);
+				}
+			}
+		});
 	}
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.constants.ProjectCapabilities;
+
+/**
+ * Fetches the capabilities of applications in the background so that nothing waits for
+ * the capabilities request, in particular menu and action enablement on the UI thread.
+ * A failed request is tried again after a delay that doubles up to a cap. After the last
+ * attempt the fetch stops, and the next {@link MicroclimateApplication#fetchProjectCapabilities()}
+ * starts again.
+ */
+class ProjectCapabilitiesFetcher {
+
+	static final long INITIAL_DELAY_MS = 1000;
+	static final long MAX_DELAY_MS = 60000;
+	static final int MAX_ATTEMPTS = 8;
+
+	private static final ScheduledExecutorService executor;
+	static {
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate capabilities " + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		pool.setRemoveOnCancelPolicy(true);
+		executor = pool;
+	}
+
+	private ProjectCapabilitiesFetcher() {}
+
+	/**
+	 * Start fetching the capabilities for the app. The app makes sure there is only one fetch at a time.
+	 */
+	static void fetch(MicroclimateApplication app) {
+		schedule(app, 0, 0);
+	}
+
+	private static void schedule(final MicroclimateApplication app, final int attempt, long delay) {
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				tryFetch(app, attempt);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private static void tryFetch(MicroclimateApplication app, int attempt) {
+		if (app.getCachedProjectCapabilities() != null) {
+			// Already known, for example from the connection snapshot
+			app.capabilitiesFetchDone();
+			return;
+		}
+		if (app.isDisposed() || app.mcConnection.getAppByID(app.projectID) != app) {
+			// The app was removed or replaced
+			app.capabilitiesFetchDone();
+			return;
+		}
+		try {
+			JSONObject obj = app.mcConnection.requestProjectCapabilities(app);
+			app.setProjectCapabilities(new ProjectCapabilities(obj));
+			app.capabilitiesFetchDone();
+		} catch (Exception e) {
+			if (attempt + 1 >= MAX_ATTEMPTS) {
+				MCLogger.logError("Failed to get the project capabilities for application: " + app.name //$NON-NLS-1$
+						+ " after " + MAX_ATTEMPTS + " attempts", e); //$NON-NLS-1$ //$NON-NLS-2$
+				app.capabilitiesFetchDone();
+				return;
+			}
+			long delay = Math.min(INITIAL_DELAY_MS << attempt, MAX_DELAY_MS);
+			MCLogger.log("Failed to get the project capabilities for application: " + app.name //$NON-NLS-1$
+					+ ", trying again in " + delay + "ms: " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			schedule(app, attempt + 1, delay);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+
+/**
+ * The applications for one connection, indexed by project ID and by name.
+ *
+ * The registry is copy on write: each change builds a new immutable snapshot of the apps and
+ * both indexes and publishes it with a single volatile write. Reads never lock, and the list
+ * returned by {@link #getApps()} is the snapshot itself so iterating it is free and is not
+ * affected by later changes. Apps are added rarely compared to how often they are read,
+ * so the copy on each change is cheap.
+ */
+public class ApplicationRegistry {
+
+	private static final class Snapshot {
+		final List<MicroclimateApplication> apps;
+		final Map<String, MicroclimateApplication> byID;
+		final Map<String, MicroclimateApplication> byName;
+
+		Snapshot(List<MicroclimateApplication> apps) {
+			Map<String, MicroclimateApplication> byID = new HashMap<String, MicroclimateApplication>();
+			Map<String, MicroclimateApplication> byName = new HashMap<String, MicroclimateApplication>();
+			for (MicroclimateApplication app : apps) {
+				byID.put(app.projectID, app);
+				byName.put(app.name, app);
+			}
+			this.apps = Collections.unmodifiableList(apps);
+			this.byID = Collections.unmodifiableMap(byID);
+			this.byName = Collections.unmodifiableMap(byName);
+		}
+	}
+
+	private volatile Snapshot snapshot = new Snapshot(new ArrayList<MicroclimateApplication>(0));
+
+	/**
+	 * Add the app, replacing any app with the same project ID in the same position.
+	 * 
+	 * @return The app that was replaced, or null.
+	 */
+	public synchronized MicroclimateApplication add(MicroclimateApplication app) {
+		List<MicroclimateApplication> apps = new ArrayList<MicroclimateApplication>(snapshot.apps.size() + 1);
+		MicroclimateApplication replaced = null;
+		for (MicroclimateApplication existing : snapshot.apps) {
+			if (existing.projectID.equals(app.projectID)) {
+				apps.add(app);
+				replaced = existing;
+			} else {
+				apps.add(existing);
+			}
+		}
+		if (replaced == null) {
+			apps.add(app);
+		}
+		snapshot = new Snapshot(apps);
+		return replaced;
+	}
+
+	/**
+	 * @return The removed app, or null if there was no app with the given project ID.
+	 */
+	public synchronized MicroclimateApplication remove(String projectID) {
+		MicroclimateApplication removed = snapshot.byID.get(projectID);
+		if (removed == null) {
+			return null;
+		}
+		List<MicroclimateApplication> apps = new ArrayList<MicroclimateApplication>(snapshot.apps);
+		apps.remove(removed);
+		snapshot = new Snapshot(apps);
+		return removed;
+	}
+
+	/**
+	 * @return The app with the given project ID, or null.
+	 */
+	public MicroclimateApplication get(String projectID) {
+		return snapshot.byID.get(projectID);
+	}
+
+	/**
+	 * @return The app with the given name, or null.
+	 */
+	public MicroclimateApplication getByName(String name) {
+		return snapshot.byName.get(name);
+	}
+
+	/**
+	 * @return An unmodifiable list of the apps in the order they were added. The list does not change.
+	 */
+	public List<MicroclimateApplication> getApps() {
+		return snapshot.apps;
+	}
+
+	/**
+	 * @return An unmodifiable set of the project IDs. The set does not change.
+	 */
+	public Set<String> getIDs() {
+		return snapshot.byID.keySet();
+	}
+
+	public int size() {
+		return snapshot.apps.size();
+	}
+}
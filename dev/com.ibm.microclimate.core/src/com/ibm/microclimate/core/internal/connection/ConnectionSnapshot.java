@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
+import com.ibm.microclimate.core.internal.ApplicationState;
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.constants.AppState;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.core.internal.constants.ProjectCapabilities;
+import com.ibm.microclimate.core.internal.constants.ProjectType;
+import com.ibm.microclimate.core.internal.constants.StartMode;
+
+/**
+ * A snapshot of the applications for each saved connection, kept in the plug-in state location
+ * so that the Microclimate view has something to show at startup before the connections are
+ * restored. The snapshot is written when the plug-in stops and shortly after the app list changes.
+ * Everything in it is stale, the live data replaces it once the connection is ready.
+ */
+public class ConnectionSnapshot {
+
+	private static final String SNAPSHOT_FILE = "connections.json"; //$NON-NLS-1$
+
+	// Wait for a burst of changes to settle before writing
+	private static final long SAVE_DELAY_MS = 2000;
+
+	private static final String
+			KEY_URL = "url", //$NON-NLS-1$
+			KEY_APPS = "apps", //$NON-NLS-1$
+			KEY_ENABLED = "enabled", //$NON-NLS-1$
+			KEY_HTTP_PORT = "httpPort", //$NON-NLS-1$
+			KEY_DEBUG_PORT = "debugPort", //$NON-NLS-1$
+			KEY_CAPABILITIES = "capabilities"; //$NON-NLS-1$
+
+	/**
+	 * The last known state of one application.
+	 */
+	public static class AppSnapshot {
+		public final String connectionUrl;
+		public final String projectID;
+		public final String name;
+		public final ProjectType projectType;
+		public final String locOnDisk;
+		public final AppState appState;
+		public final BuildStatus buildStatus;
+		public final String buildDetails;
+		public final StartMode startMode;
+		public final boolean enabled;
+		public final String contextRoot;
+		public final int httpPort;
+		public final int debugPort;
+		// Null if the capabilities were never fetched
+		public final ProjectCapabilities capabilities;
+
+		private AppSnapshot(String connectionUrl, JSONObject obj) throws JSONException {
+			this.connectionUrl = connectionUrl;
+			this.projectID = obj.getString(MCConstants.KEY_PROJECT_ID);
+			this.name = obj.getString(MCConstants.KEY_NAME);
+			this.projectType = new ProjectType(obj.optString(MCConstants.KEY_BUILD_TYPE, null),
+					obj.optString(MCConstants.KEY_LANGUAGE, null));
+			this.locOnDisk = obj.optString(MCConstants.KEY_LOC_DISK, null);
+			this.appState = AppState.get(obj.optString(MCConstants.KEY_APP_STATUS, AppState.UNKNOWN.appState));
+			this.buildStatus = BuildStatus.get(obj.optString(MCConstants.KEY_BUILD_STATUS, BuildStatus.UNKOWN.status));
+			this.buildDetails = obj.optString(MCConstants.KEY_DETAILED_BUILD_STATUS, null);
+			StartMode mode = StartMode.get(obj.optString(MCConstants.KEY_START_MODE, null));
+			this.startMode = mode == null ? StartMode.RUN : mode;
+			this.enabled = obj.optBoolean(KEY_ENABLED, true);
+			this.contextRoot = obj.optString(MCConstants.KEY_CONTEXTROOT, null);
+			this.httpPort = obj.optInt(KEY_HTTP_PORT, -1);
+			this.debugPort = obj.optInt(KEY_DEBUG_PORT, -1);
+			JSONObject capabilitiesObj = obj.optJSONObject(KEY_CAPABILITIES);
+			this.capabilities = capabilitiesObj == null ? null : new ProjectCapabilities(capabilitiesObj);
+		}
+
+		private static JSONObject toJSON(MicroclimateApplication app) throws JSONException {
+			ApplicationState state = app.getState();
+			JSONObject obj = new JSONObject();
+			obj.put(MCConstants.KEY_PROJECT_ID, app.projectID);
+			obj.put(MCConstants.KEY_NAME, app.name);
+			obj.put(MCConstants.KEY_BUILD_TYPE, app.projectType.type);
+			obj.put(MCConstants.KEY_LANGUAGE, app.projectType.language);
+			obj.put(MCConstants.KEY_LOC_DISK, app.fullLocalPath.toString());
+			obj.put(MCConstants.KEY_APP_STATUS, state.appState.appState);
+			obj.put(MCConstants.KEY_BUILD_STATUS, state.buildStatus.status);
+			obj.put(MCConstants.KEY_DETAILED_BUILD_STATUS, state.buildDetails);
+			obj.put(MCConstants.KEY_START_MODE, state.startMode.startMode);
+			obj.put(KEY_ENABLED, state.enabled);
+			obj.put(MCConstants.KEY_CONTEXTROOT, state.contextRoot);
+			obj.put(KEY_HTTP_PORT, state.httpPort);
+			obj.put(KEY_DEBUG_PORT, state.debugPort);
+			ProjectCapabilities capabilities = app.getCachedProjectCapabilities();
+			if (capabilities != null) {
+				obj.put(KEY_CAPABILITIES, capabilities.toJSON());
+			}
+			return obj;
+		}
+	}
+
+	// Keyed by connection url, as saved in the preferences
+	private static final Map<String, List<AppSnapshot>> snapshots = new ConcurrentHashMap<String, List<AppSnapshot>>();
+	// The json for each connection, kept so that connections that are not active are written back unchanged
+	private static final Map<String, JSONObject> snapshotJson = new ConcurrentHashMap<String, JSONObject>();
+
+	private static boolean loaded = false;
+
+	private static final Job saveJob = new Job("Save Microclimate connection snapshot") { //$NON-NLS-1$
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			save();
+			return Status.OK_STATUS;
+		}
+	};
+	static {
+		saveJob.setSystem(true);
+	}
+
+	private ConnectionSnapshot() {}
+
+	/**
+	 * Read the snapshot from the plug-in state location. Only the first call reads the file.
+	 */
+	public static synchronized void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		File file = getSnapshotFile();
+		if (file == null || !file.exists()) {
+			return;
+		}
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			JSONArray connections = new JSONArray(new JSONTokener(reader));
+			for (int i = 0; i < connections.length(); i++) {
+				JSONObject connection = connections.getJSONObject(i);
+				String url = connection.getString(KEY_URL);
+				JSONArray apps = connection.getJSONArray(KEY_APPS);
+				List<AppSnapshot> appSnapshots = new ArrayList<AppSnapshot>(apps.length());
+				for (int j = 0; j < apps.length(); j++) {
+					appSnapshots.add(new AppSnapshot(url, apps.getJSONObject(j)));
+				}
+				snapshots.put(url, Collections.unmodifiableList(appSnapshots));
+				snapshotJson.put(url, connection);
+			}
+			MCLogger.log("Loaded the snapshot for " + snapshots.size() + " connections"); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (Exception e) {
+			MCLogger.logError("Failed to read the connection snapshot: " + file, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return The last known apps for the connection with the given url, never null.
+	 */
+	public static List<AppSnapshot> getApps(String url) {
+		List<AppSnapshot> apps = snapshots.get(url);
+		return apps != null ? apps : Collections.<AppSnapshot>emptyList();
+	}
+
+	/**
+	 * @return The last known state of the given app, or null if there is none.
+	 */
+	public static AppSnapshot getApp(String url, String projectID) {
+		for (AppSnapshot app : getApps(url)) {
+			if (app.projectID.equals(projectID)) {
+				return app;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Write the snapshot shortly, after any other changes that come with this one.
+	 */
+	public static void scheduleSave() {
+		saveJob.schedule(SAVE_DELAY_MS);
+	}
+
+	/**
+	 * Write the snapshot now, using the live apps for active connections and the previous snapshot
+	 * for saved connections that are not active. Connections that are no longer saved are dropped.
+	 */
+	public static synchronized void save() {
+		File file = getSnapshotFile();
+		if (file == null || !loaded) {
+			// Nothing to save if the connections were never loaded, and the old snapshot must not be lost
+			return;
+		}
+		Set<String> savedUrls = new HashSet<String>();
+		JSONArray connections = new JSONArray();
+		try {
+			for (MicroclimateConnection connection : MicroclimateConnectionManager.activeConnections()) {
+				String url = connection.toPrefsString();
+				savedUrls.add(url);
+				JSONArray apps = new JSONArray();
+				for (MicroclimateApplication app : connection.getApps()) {
+					apps.put(AppSnapshot.toJSON(app));
+				}
+				JSONObject obj = new JSONObject();
+				obj.put(KEY_URL, url);
+				obj.put(KEY_APPS, apps);
+				connections.put(obj);
+				snapshotJson.put(url, obj);
+			}
+			List<String> inactiveUrls = new ArrayList<String>(MicroclimateConnectionManager.brokenConnections());
+			inactiveUrls.addAll(MicroclimateConnectionManager.pendingConnections());
+			for (String url : inactiveUrls) {
+				JSONObject obj = snapshotJson.get(url);
+				if (obj != null && savedUrls.add(url)) {
+					connections.put(obj);
+				}
+			}
+		} catch (JSONException e) {
+			MCLogger.logError("Failed to create the connection snapshot", e); //$NON-NLS-1$
+			return;
+		}
+		Iterator<String> it = snapshotJson.keySet().iterator();
+		while (it.hasNext()) {
+			if (!savedUrls.contains(it.next())) {
+				it.remove();
+			}
+		}
+
+		// Write to a temporary file first so that a failed write does not lose the previous snapshot
+		File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			Files.write(tempFile.toPath(), connections.toString().getBytes(StandardCharsets.UTF_8));
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			MCLogger.logError("Failed to write the connection snapshot: " + file, e); //$NON-NLS-1$
+		}
+	}
+
+	private static File getSnapshotFile() {
+		MicroclimateCorePlugin plugin = MicroclimateCorePlugin.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		return plugin.getStateLocation().append(SNAPSHOT_FILE).toFile();
+	}
+}
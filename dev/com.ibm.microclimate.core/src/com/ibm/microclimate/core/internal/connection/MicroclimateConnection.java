@@ -18,12 +18,17 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -32,6 +37,9 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.ibm.microclimate.core.internal.ConnectionChangeEvent;
+import com.ibm.microclimate.core.internal.HttpResponseCache;
+import com.ibm.microclimate.core.internal.HttpResponseCache.CachedResult;
 import com.ibm.microclimate.core.internal.HttpUtil;
 import com.ibm.microclimate.core.internal.HttpUtil.HttpResult;
 import com.ibm.microclimate.core.internal.MCLogger;
@@ -40,6 +48,7 @@ import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.MicroclimateApplicationFactory;
 import com.ibm.microclimate.core.internal.console.ProjectLogInfo;
 import com.ibm.microclimate.core.internal.console.ProjectTemplateInfo;
+import com.ibm.microclimate.core.internal.console.SocketConsole;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
 import com.ibm.microclimate.core.internal.constants.ProjectType;
 import com.ibm.microclimate.core.internal.messages.Messages;
@@ -50,21 +59,39 @@ import com.ibm.microclimate.core.internal.messages.Messages;
 public class MicroclimateConnection {
 
 	public static final String MICROCLIMATE_WORKSPACE_PROPERTY = "com.ibm.microclimate.internal.workspace"; //$NON-NLS-1$
-	private static final String UNKNOWN_VERSION = "unknown"; //$NON-NLS-1$
-	private static final String BRANCH_VERSION = "\\d{4}_M\\d{1,2}_\\D";
-	private static final Pattern pattern = Pattern.compile(BRANCH_VERSION);
 
 	public final URI baseUrl;
 	private IPath localWorkspacePath;
-	private String versionStr;
-	private String connectionErrorMsg = null;
+	// Parsed from the version when connecting and again after reconnecting
+	private volatile ServerFeatures features = ServerFeatures.UNKNOWN;
+	private volatile String connectionErrorMsg = null;
 	private String socketNamespace = null;
 
-	private MicroclimateSocket mcSocket;
+	private volatile MicroclimateSocket mcSocket;
 	
 	private volatile boolean isConnected = true;
 
-	private Map<String, MicroclimateApplication> appMap = new LinkedHashMap<String, MicroclimateApplication>();
+	// Read by the UI without locking while socket events add and remove apps
+	private final ApplicationRegistry apps = new ApplicationRegistry();
+
+	// Per project locks so that updates to different projects do not wait for each other
+	private final Map<String, ReentrantLock> appLocks = new ConcurrentHashMap<String, ReentrantLock>();
+	private final AtomicLong appLockWaitNanos = new AtomicLong();
+	private final AtomicLong appLockContentionCount = new AtomicLong();
+
+	// Consoles showing log output from socket events. Kept here so they survive the socket being recreated.
+	private final SocketConsoleRegistry consoleRegistry = new SocketConsoleRegistry();
+
+	// Lets refreshApps skip the update when the project list has not changed
+	private final HttpResponseCache responseCache = new HttpResponseCache();
+
+	// Single-flight state for refreshApps, guarded by refreshLock
+	private final Object refreshLock = new Object();
+	private RefreshRequest runningRefresh = null;
+	private RefreshRequest pendingRefresh = null;
+	private Thread refreshThread = null;
+	private final AtomicLong refreshFetchCount = new AtomicLong();
+	private final AtomicLong refreshSavedCount = new AtomicLong();
 
 	public static URI buildUrl(String host, int port) throws URISyntaxException {
 		return new URI("http", null, host, port, null, null, null); //$NON-NLS-1$
@@ -82,17 +109,17 @@ public class MicroclimateConnection {
 		
 		JSONObject env = getEnvData(this.baseUrl);
 
-		this.versionStr = getMCVersion(env);
+		this.features = ServerFeatures.parse(getMCVersion(env));
 
-		if (UNKNOWN_VERSION.equals(versionStr)) {
+		if (features.isUnknown()) {
 			onInitFail(NLS.bind(Messages.MicroclimateConnection_ErrConnection_VersionUnknown,
 					MCConstants.REQUIRED_MC_VERSION));
-		} else if (!isSupportedVersion(versionStr)) {
+		} else if (!features.supported) {
 			onInitFail(NLS.bind(Messages.MicroclimateConnection_ErrConnection_OldVersion,
-					versionStr, MCConstants.REQUIRED_MC_VERSION));
+					features.versionStr, MCConstants.REQUIRED_MC_VERSION));
 		}
 
-		MCLogger.log("Microclimate version is: " + versionStr);			// $NON-NLS-1$
+		MCLogger.log("Microclimate server features: " + features);			// $NON-NLS-1$
 
 		this.localWorkspacePath = getWorkspacePath(env);
 		if (localWorkspacePath == null) {
@@ -104,7 +131,7 @@ public class MicroclimateConnection {
 		this.socketNamespace = getSocketNamespace(env);
 		
 		mcSocket = new MicroclimateSocket(this);
-		if(!mcSocket.blockUntilFirstConnection()) {
+		if (!waitForConnect(mcSocket)) {
 			close();
 			throw new MicroclimateConnectionException(mcSocket.socketUri);
 		}
@@ -114,6 +141,26 @@ public class MicroclimateConnection {
 		MCLogger.log("Created " + this); //$NON-NLS-1$
 	}
 	
+	/**
+	 * Connect the socket and wait for the handshake to finish.
+	 * 
+	 * @return true if the socket connected.
+	 */
+	private static boolean waitForConnect(MicroclimateSocket socket) {
+		try {
+			socket.connect().get(MicroclimateSocket.CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			MCLogger.log("MicroclimateSocket connected to " + socket.socketUri); //$NON-NLS-1$
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			MCLogger.log("MicroclimateSocket failed to connect to " + socket.socketUri + ": " + e.getCause()); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (TimeoutException e) {
+			MCLogger.log("MicroclimateSocket did not connect in time to " + socket.socketUri); //$NON-NLS-1$
+		}
+		return false;
+	}
+
 	public String getSocketNamespace() {
 		return socketNamespace;
 	}
@@ -122,6 +169,17 @@ public class MicroclimateConnection {
 		return mcSocket;
 	}
 
+	public SocketConsoleRegistry getConsoleRegistry() {
+		return consoleRegistry;
+	}
+
+	/**
+	 * @return The number of consoles currently receiving log output from this connection.
+	 */
+	public int getActiveLogStreamCount() {
+		return consoleRegistry.getActiveStreamCount();
+	}
+
 	private void onInitFail(String msg) throws ConnectException {
 		MCLogger.log("Initializing MicroclimateConnection failed: " + msg); //$NON-NLS-1$
 		close();
@@ -136,9 +194,12 @@ public class MicroclimateConnection {
 		if (mcSocket != null) {
 			mcSocket.close();
 		}
-		for (MicroclimateApplication app : appMap.values()) {
+		for (MicroclimateApplication app : apps.getApps()) {
 			app.dispose();
 		}
+		HttpUtil.evictConnections(baseUrl);
+		MCLogger.log("HTTP connection pool hits: " + HttpUtil.getPoolHitCount() //$NON-NLS-1$
+				+ ", misses: " + HttpUtil.getPoolMissCount()); //$NON-NLS-1$
 	}
 
 	private static JSONObject getEnvData(URI baseUrl) throws JSONException, IOException {
@@ -158,7 +219,7 @@ public class MicroclimateConnection {
 	private static String getMCVersion(JSONObject env) {
 		if (!env.has(MCConstants.KEY_ENV_MC_VERSION)) {
 			MCLogger.logError("Missing version from env data"); //$NON-NLS-1$
-			return UNKNOWN_VERSION;
+			return ServerFeatures.UNKNOWN_VERSION;
 		}
 
 		try {
@@ -168,73 +229,22 @@ public class MicroclimateConnection {
 		} catch (JSONException e) {
 			// we already checked for this key so this will not happen.
 			MCLogger.logError(e);
-			return UNKNOWN_VERSION;
+			return ServerFeatures.UNKNOWN_VERSION;
 		}
 	}
 
-	private static boolean isSupportedVersion(String versionStr) {
-		if (UNKNOWN_VERSION.equals(versionStr)) {
-			return false;
-		}
-
-		if (MCConstants.VERSION_LATEST.equals(versionStr)) {
-			// Development build - possible other values to check for?
-			return true;
-		}
-		
-		Matcher matcher = pattern.matcher(versionStr);
-		if (matcher.matches()) {
-			return true;
-		}
-
-		// The version will have a format like '1809', which corresponds to v18.09
-		try {
-			int version = Integer.parseInt(versionStr);
-			return version >= MCConstants.REQUIRED_MC_VERSION;
-		}
-		catch(NumberFormatException e) {
-			MCLogger.logError("Couldn't parse version number from " + versionStr); //$NON-NLS-1$
-			return false;
-		}
+	/**
+	 * @return The features of the Microclimate server, parsed from its version.
+	 */
+	public ServerFeatures getFeatures() {
+		return features;
 	}
-	
+
+	/**
+	 * Prefer the flags in {@link #getFeatures()}, this parses the required version on each call.
+	 */
 	public boolean checkVersion(int requiredVersion, String requiredVersionBr) {
-		if (UNKNOWN_VERSION.equals(versionStr)) {
-			return false;
-		}
-		
-		if (MCConstants.VERSION_LATEST.equals(versionStr)) {
-			// Development build - possible other values to check for?
-			return true;
-		}
-		
-		Matcher matcher = pattern.matcher(versionStr);
-		if (matcher.matches()) {
-			String actualYear = versionStr.substring(0, 4);
-			String requiredYear = requiredVersionBr.substring(0, 4);
-			try {
-				if (Integer.parseInt(actualYear) >= (Integer.parseInt(requiredYear))) {
-					int index = versionStr.lastIndexOf('_');
-					String actualIteration = versionStr.substring(6, index);
-					index = requiredVersionBr.lastIndexOf('_');
-					String requiredIteration = requiredVersionBr.substring(6, index);
-					if (Integer.parseInt(actualIteration) >= Integer.parseInt(requiredIteration)) {
-						return true;
-					}
-				}
-			} catch (NumberFormatException e) {
-				MCLogger.logError("Failed to parse the actual version: " + versionStr + ", or the required version: " + requiredVersionBr);
-			}
-			return false;
-		}
-		
-		try {
-			return Integer.parseInt(versionStr) >= requiredVersion;
-		} catch(NumberFormatException e) {
-			MCLogger.logError("Couldn't parse version number from " + versionStr); //$NON-NLS-1$
-		}
-		
-		return false;
+		return features.isAtLeast(requiredVersion, requiredVersionBr);
 	}
 	
 	public String getConnectionErrorMsg() {
@@ -273,67 +283,227 @@ public class MicroclimateConnection {
 		return null;
 	}
 
+	/**
+	 * A batch of refresh requests that is served by one fetch of the project list.
+	 */
+	private static class RefreshRequest {
+		// Null once a refresh of all projects has been requested
+		Set<String> projectIDs = new HashSet<String>();
+		boolean done = false;
+
+		void add(String projectID) {
+			if (projectID == null) {
+				projectIDs = null;
+			} else if (projectIDs != null) {
+				projectIDs.add(projectID);
+			}
+		}
+
+		boolean covers(String projectID) {
+			return projectIDs == null || (projectID != null && projectIDs.contains(projectID));
+		}
+	}
+
 	/**
 	 * Refresh this connection's apps using the Microclimate project list endpoint.
 	 * If projectID is not null then only refresh the corresponding application.
+	 * 
+	 * Calls made while a refresh is running are merged into a single follow-up refresh,
+	 * so a burst of calls costs at most two fetches. A refresh of all projects subsumes
+	 * any pending refreshes of single projects. Each call returns once a fetch that started
+	 * after the call was made has been applied.
 	 */
 	public void refreshApps(String projectID) {
+		RefreshRequest request;
+		synchronized(refreshLock) {
+			if (refreshThread == Thread.currentThread()) {
+				// Called while applying the list, for example when an app is re-enabled
+				if (runningRefresh.covers(projectID)) {
+					// The list being applied is already up to date for this project
+					refreshSavedCount.incrementAndGet();
+					return;
+				}
+				request = new RefreshRequest();
+				request.add(projectID);
+			} else {
+				if (pendingRefresh != null) {
+					// Join the refresh that will run next
+					pendingRefresh.add(projectID);
+					refreshSavedCount.incrementAndGet();
+					request = pendingRefresh;
+					try {
+						while (!request.done) {
+							refreshLock.wait();
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return;
+				}
+				request = new RefreshRequest();
+				request.add(projectID);
+				pendingRefresh = request;
+				// Other callers may have joined this request so keep waiting even if interrupted
+				boolean interrupted = false;
+				while (runningRefresh != null) {
+					try {
+						refreshLock.wait();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				pendingRefresh = null;
+				runningRefresh = request;
+				refreshThread = Thread.currentThread();
+			}
+		}
+
+		try {
+			doRefreshApps(request.projectIDs);
+		} finally {
+			synchronized(refreshLock) {
+				if (runningRefresh == request) {
+					runningRefresh = null;
+					refreshThread = null;
+				}
+				request.done = true;
+				refreshLock.notifyAll();
+			}
+		}
+	}
+
+	private void doRefreshApps(Set<String> projectIDs) {
 
 		final URI projectsURL = baseUrl.resolve(MCConstants.APIPATH_PROJECT_LIST);
 
-		try {
-			String projectsResponse = HttpUtil.get(projectsURL).response;
-			MicroclimateApplicationFactory.getAppsFromProjectsJson(this, projectsResponse, projectID);
-			MCLogger.log("App list update success"); //$NON-NLS-1$
+		refreshFetchCount.incrementAndGet();
+		try (CachedResult result = responseCache.get(projectsURL)) {
+			if (!result.isGoodResponse) {
+				// The bad response has already been logged
+				return;
+			}
+			if (!result.isModified) {
+				// Never the case after a reconnect since the validators are dropped when the connection is lost
+				MCLogger.log("App list has not changed"); //$NON-NLS-1$
+				return;
+			}
+			if (MicroclimateApplicationFactory.getAppsFromProjectsJson(this, result.getReader(), projectIDs)) {
+				// Only a full refresh brings every app up to date with the list
+				if (projectIDs == null) {
+					result.commit();
+				}
+				ConnectionSnapshot.scheduleSave();
+				MCLogger.log("App list update success"); //$NON-NLS-1$
+			}
 		}
 		catch(Exception e) {
 			MCUtil.openDialog(true, Messages.MicroclimateConnection_ErrGettingProjectListTitle, e.getMessage());
 		}
 	}
+
+	/**
+	 * @return The number of times the project list has been fetched by refreshApps.
+	 */
+	public long getRefreshFetchCount() {
+		return refreshFetchCount.get();
+	}
+
+	/**
+	 * @return The number of refreshApps calls that were served by another call's fetch.
+	 */
+	public long getRefreshSavedCount() {
+		return refreshSavedCount.get();
+	}
 	
 	public void addApp(MicroclimateApplication app) {
-		synchronized(appMap) {
-			appMap.put(app.projectID, app);
+		if (apps.add(app) != app) {
+			MCUtil.fireConnectionChanged(new ConnectionChangeEvent(this, ConnectionChangeEvent.Field.APPS));
 		}
 	}
 
-	public List<MicroclimateApplication> getApps() {
-		synchronized(appMap) {
-			return new ArrayList<MicroclimateApplication>(appMap.values());
+	/**
+	 * Lock the given project while its app is created or updated. Updates to the same project
+	 * are ordered while updates to different projects can run at the same time. The lock is
+	 * reentrant and must be released with {@link #unlockApp(String)}.
+	 */
+	public void lockApp(String projectID) {
+		ReentrantLock lock = getAppLock(projectID);
+		if (!lock.tryLock()) {
+			long start = System.nanoTime();
+			lock.lock();
+			appLockWaitNanos.addAndGet(System.nanoTime() - start);
+			appLockContentionCount.incrementAndGet();
 		}
 	}
-	
-	public Set<String> getAppIds() {
-		synchronized(appMap) {
-			return new HashSet<String>(appMap.keySet());
+
+	public void unlockApp(String projectID) {
+		getAppLock(projectID).unlock();
+	}
+
+	private ReentrantLock getAppLock(String projectID) {
+		ReentrantLock lock = appLocks.get(projectID);
+		if (lock == null) {
+			lock = new ReentrantLock();
+			ReentrantLock existing = appLocks.putIfAbsent(projectID, lock);
+			if (existing != null) {
+				lock = existing;
+			}
 		}
+		return lock;
+	}
+
+	/**
+	 * @return The total time in milliseconds spent waiting for project locks held by other threads.
+	 */
+	public long getAppLockWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(appLockWaitNanos.get());
+	}
+
+	/**
+	 * @return The number of times a project lock was already held by another thread.
+	 */
+	public long getAppLockContentionCount() {
+		return appLockContentionCount.get();
+	}
+
+	/**
+	 * @return An unmodifiable snapshot of the apps. It does not change, so it can be iterated without copying.
+	 */
+	public List<MicroclimateApplication> getApps() {
+		return apps.getApps();
+	}
+
+	/**
+	 * @return An unmodifiable snapshot of the project IDs.
+	 */
+	public Set<String> getAppIds() {
+		return apps.getIDs();
 	}
 
 	public MicroclimateApplication removeApp(String projectID) {
-		synchronized(appMap) {
-			return appMap.remove(projectID);
+		MicroclimateApplication app = apps.remove(projectID);
+		if (app != null) {
+			MCUtil.fireConnectionChanged(new ConnectionChangeEvent(this, ConnectionChangeEvent.Field.APPS));
 		}
+		return app;
 	}
 
 	/**
 	 * @return The app with the given ID, if it exists in this Microclimate instance, else null.
 	 */
-	public synchronized MicroclimateApplication getAppByID(String projectID) {
-		synchronized(appMap) {
-			return appMap.get(projectID);
-		}
+	public MicroclimateApplication getAppByID(String projectID) {
+		return apps.get(projectID);
 	}
 
 	public MicroclimateApplication getAppByName(String name) {
-		synchronized(appMap) {
-			for (MicroclimateApplication app : getApps()) {
-				if (app.name.equals(name)) {
-					return app;
-				}
-			}
+		MicroclimateApplication app = apps.getByName(name);
+		if (app == null) {
+			MCLogger.log("No application found for name " + name); //$NON-NLS-1$
 		}
-		MCLogger.log("No application found for name " + name); //$NON-NLS-1$
-		return null;
+		return app;
 	}
 
 	public void requestProjectRestart(MicroclimateApplication app, String launchMode)
@@ -413,7 +583,7 @@ public class MicroclimateConnection {
 	}
 	
 	public JSONObject requestProjectMetricsStatus(MicroclimateApplication app) throws IOException, JSONException {
-		if (!app.mcConnection.checkVersion(1905, "2019_M5_E")) {
+		if (!features.metricsStatus) {
 			return null;
 		}
 		String endpoint = MCConstants.APIPATH_PROJECT_LIST + "/" 	//$NON-NLS-1$
@@ -448,7 +618,7 @@ public class MicroclimateConnection {
 	
 	public List<ProjectLogInfo> requestProjectLogs(MicroclimateApplication app) throws JSONException, IOException {
 		List<ProjectLogInfo> logList = new ArrayList<ProjectLogInfo>();
-		if (!app.mcConnection.checkVersion(1905, "2019_M5_E")) {
+		if (!features.projectLogs) {
 			return logList;
 		}
 		
@@ -493,11 +663,22 @@ public class MicroclimateConnection {
 	}
 	
 	public void requestEnableLogStream(MicroclimateApplication app, ProjectLogInfo logInfo) throws IOException {
+		requestEnableLogStream(app, logInfo, 0);
+	}
+	
+	/**
+	 * Enable the log stream, asking for the log from the given character offset so that
+	 * only the part that has not been received yet is sent. An offset of 0 asks for the whole log.
+	 */
+	public void requestEnableLogStream(MicroclimateApplication app, ProjectLogInfo logInfo, long offset) throws IOException {
 		String endpoint = MCConstants.APIPATH_PROJECT_LIST + "/" 	//$NON-NLS-1$
 				+ app.projectID + "/" 								//$NON-NLS-1$
 				+ MCConstants.APIPATH_LOGS + "/"					//$NON-NLS-1$
 				+ logInfo.type + "/"								//$NON-NLS-1$
 				+ logInfo.logName;
+		if (offset > 0) {
+			endpoint = endpoint + "?" + MCConstants.QUERY_LOG_OFFSET + "=" + offset; //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		
 		URI uri = baseUrl.resolve(endpoint);
 		HttpResult result = HttpUtil.post(uri);
@@ -517,7 +698,7 @@ public class MicroclimateConnection {
 	}
 	
 	public void requestValidate(MicroclimateApplication app) throws JSONException, IOException {
-		boolean projectIdInPath = checkVersion(1901, "2019_M1_E");
+		boolean projectIdInPath = features.projectIDInPath;
 		
 		String endpoint;
 		if (projectIdInPath) {
@@ -547,7 +728,7 @@ public class MicroclimateConnection {
 	}
 	
 	public void requestValidateGenerate(MicroclimateApplication app) throws JSONException, IOException {
-		boolean projectIdInPath = checkVersion(1901, "2019_M1_E");
+		boolean projectIdInPath = features.projectIDInPath;
 		
 		String endpoint;
 		if (projectIdInPath) {
@@ -651,79 +832,162 @@ public class MicroclimateConnection {
 	/**
 	 * Called by the MicroclimateSocket when the socket.io connection goes down.
 	 */
-	public synchronized void onConnectionError() {
+	public void onConnectionError() {
 		MCLogger.log("MCConnection to " + baseUrl + " lost"); //$NON-NLS-1$ //$NON-NLS-2$
-		isConnected = false;
-		synchronized(appMap) {
-			appMap.clear();
+		// Keep the apps so they can be reconciled with the project list on reconnect
+		// rather than rebuilt. Until then they are stale.
+		for (MicroclimateApplication app : getApps()) {
+			app.setStale(true);
+		}
+		// The validators are from the last full refresh, and socket events may have changed the apps
+		// since. Fetch the whole list on reconnect so each app is checked against it.
+		responseCache.invalidate(baseUrl.resolve(MCConstants.APIPATH_PROJECT_LIST));
+		ConnectionChangeEvent event;
+		synchronized(this) {
+			event = setStatus(false, connectionErrorMsg);
+		}
+		fire(event);
+	}
+
+	/**
+	 * Update the connection status. Must hold the lock.
+	 * 
+	 * @return The event for the model change listeners, or null if the status did not change.
+	 * 		Fire it with {@link #fire(ConnectionChangeEvent)} after releasing the lock.
+	 */
+	private ConnectionChangeEvent setStatus(boolean connected, String errorMsg) {
+		if (isConnected == connected && Objects.equals(connectionErrorMsg, errorMsg)) {
+			return null;
+		}
+		isConnected = connected;
+		connectionErrorMsg = errorMsg;
+		return new ConnectionChangeEvent(this, ConnectionChangeEvent.Field.STATUS);
+	}
+
+	/**
+	 * Tell the model change listeners about a status change. Must not hold the lock, since
+	 * listeners can take other locks or wait for the UI thread.
+	 */
+	private static void fire(ConnectionChangeEvent event) {
+		if (event != null) {
+			MCUtil.fireConnectionChanged(event);
 		}
-		MCUtil.updateConnection(this);
 	}
 
 	/**
 	 * Called by the MicroclimateSocket when the socket.io connection is working.
 	 */
-	public synchronized void clearConnectionError() {
+	public void clearConnectionError() {
 		MCLogger.log("MCConnection to " + baseUrl + " restored"); //$NON-NLS-1$ //$NON-NLS-2$
 		
-		// Reset any cached information in case it has changed
+		// The apps are refreshed outside of the lock
+		if (reloadConnectionInfo()) {
+			onConnectionRestored();
+		}
+	}
+
+	/**
+	 * Reset any cached information in case it has changed.
+	 * 
+	 * @return true if the connection can be restored now, false if there was an error or
+	 * the connection will be restored once a new socket connects.
+	 */
+	private boolean reloadConnectionInfo() {
+		ConnectionChangeEvent event = null;
+		// Fire the status change once the lock is released
 		try {
-			JSONObject envData = getEnvData(baseUrl);
-			String version = getMCVersion(envData);
-			if (UNKNOWN_VERSION.equals(versionStr)) {
-				MCLogger.logError("Failed to get the Microclimate version after reconnect");
-				this.connectionErrorMsg = NLS.bind(Messages.MicroclimateConnection_ErrConnection_VersionUnknown, MCConstants.REQUIRED_MC_VERSION);
-				MCUtil.updateConnection(this);
-				return;
-			}
-			if (!isSupportedVersion(version)) {
-				MCLogger.logError("The detected version of Microclimate after reconnect is not supported: " + version);
-				this.connectionErrorMsg = NLS.bind(Messages.MicroclimateConnection_ErrConnection_OldVersion, versionStr, MCConstants.REQUIRED_MC_VERSION);
-				MCUtil.updateConnection(this);
-				return;
-			}
-			this.versionStr = version;
-			IPath path = getWorkspacePath(envData);
-			if (path == null) {
-				// This should not happen since the version was ok
-				MCLogger.logError("Failed to get the local workspace path after reconnect");
-				this.connectionErrorMsg = Messages.MicroclimateConnection_ErrConnection_WorkspaceErr;
-				MCUtil.updateConnection(this);
-				return;
-			}
-			this.localWorkspacePath = path;
+			synchronized(this) {
+				try {
+					JSONObject envData = getEnvData(baseUrl);
+					ServerFeatures newFeatures = ServerFeatures.parse(getMCVersion(envData));
+					if (newFeatures.isUnknown()) {
+						MCLogger.logError("Failed to get the Microclimate version after reconnect");
+						event = setStatus(isConnected, NLS.bind(Messages.MicroclimateConnection_ErrConnection_VersionUnknown, MCConstants.REQUIRED_MC_VERSION));
+						return false;
+					}
+					if (!newFeatures.supported) {
+						MCLogger.logError("The detected version of Microclimate after reconnect is not supported: " + newFeatures.versionStr);
+						event = setStatus(isConnected, NLS.bind(Messages.MicroclimateConnection_ErrConnection_OldVersion, newFeatures.versionStr, MCConstants.REQUIRED_MC_VERSION));
+						return false;
+					}
+					this.features = newFeatures;
+					IPath path = getWorkspacePath(envData);
+					if (path == null) {
+						// This should not happen since the version was ok
+						MCLogger.logError("Failed to get the local workspace path after reconnect");
+						event = setStatus(isConnected, Messages.MicroclimateConnection_ErrConnection_WorkspaceErr);
+						return false;
+					}
+					this.localWorkspacePath = path;
 			
-			String socketNS = getSocketNamespace(envData);
-			if ((socketNS != null && !socketNS.equals(this.socketNamespace)) || (this.socketNamespace != null && !this.socketNamespace.equals(socketNS))) {
-				// The socket namespace has changed so need to recreate the socket
-				this.socketNamespace = socketNS;
-				mcSocket.close();
-				mcSocket = new MicroclimateSocket(this);
-				if(!mcSocket.blockUntilFirstConnection()) {
-					// Still not connected
-					MCLogger.logError("Failed to create a new socket with updated URI: " + mcSocket.socketUri);
-					// Clear the message so that it just shows the basic disconnected message
-					this.connectionErrorMsg = null;
-					return;
+					String socketNS = getSocketNamespace(envData);
+					if ((socketNS != null && !socketNS.equals(this.socketNamespace)) || (this.socketNamespace != null && !this.socketNamespace.equals(socketNS))) {
+						// The socket namespace has changed so need to recreate the socket
+						this.socketNamespace = socketNS;
+						mcSocket.close();
+						final MicroclimateSocket newSocket = new MicroclimateSocket(this);
+						mcSocket = newSocket;
+						// Finish restoring the connection when the new socket connects rather than waiting here
+						newSocket.connect().whenComplete(new BiConsumer<Void, Throwable>() {
+							@Override
+							public void accept(Void result, Throwable error) {
+								if (error != null) {
+									// Still not connected
+									MCLogger.logError("Failed to create a new socket with updated URI: " + newSocket.socketUri, error);
+									// Clear the message so that it just shows the basic disconnected message
+									ConnectionChangeEvent statusEvent;
+									synchronized(MicroclimateConnection.this) {
+										statusEvent = setStatus(isConnected, null);
+									}
+									fire(statusEvent);
+								} else if (newSocket == mcSocket) {
+									onConnectionRestored();
+								}
+							}
+						});
+						return false;
+					}
+				} catch (Exception e) {
+					MCLogger.logError("An exception occurred while trying to update the connection information", e);
+					event = setStatus(isConnected, Messages.MicroclimateConnection_ErrConnection_UpdateCacheException);
+					return false;
 				}
+		
+				return true;
 			}
-		} catch (Exception e) {
-			MCLogger.logError("An exception occurred while trying to update the connection information", e);
-			this.connectionErrorMsg = Messages.MicroclimateConnection_ErrConnection_UpdateCacheException;
-			MCUtil.updateConnection(this);
-			return;
+		} finally {
+			fire(event);
 		}
-		
-		this.connectionErrorMsg = null;
-		isConnected = true;
+	}
+
+	private void onConnectionRestored() {
+		ConnectionChangeEvent event;
+		synchronized(this) {
+			event = setStatus(true, null);
+		}
+		fire(event);
 		refreshApps(null);
-		MCUtil.updateConnection(this);
+		resumeLogStreams();
+	}
+
+	/**
+	 * The log streams stop while the connection is down, so ask for whatever each
+	 * open console missed.
+	 */
+	private void resumeLogStreams() {
+		for (SocketConsole console : consoleRegistry.getSocketConsoles()) {
+			try {
+				console.resume();
+			} catch (Exception e) {
+				MCLogger.logError("Failed to resume the log stream for console: " + console.getName(), e); //$NON-NLS-1$
+			}
+		}
 	}
 
 	@Override
 	public String toString() {
 		return String.format("%s @ baseUrl=%s workspacePath=%s numApps=%d", //$NON-NLS-1$
-				MicroclimateConnection.class.getSimpleName(), baseUrl, localWorkspacePath, appMap.size());
+				MicroclimateConnection.class.getSimpleName(), baseUrl, localWorkspacePath, apps.size());
 	}
 
 	// Note that toPrefsString and fromPrefsString are used to save and load connections from the preferences store
@@ -14,8 +14,16 @@ package com.ibm.microclimate.core.internal.connection;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.ibm.microclimate.core.MicroclimateCorePlugin;
 import com.ibm.microclimate.core.internal.MCLogger;
@@ -33,9 +41,32 @@ public class MicroclimateConnectionManager {
 
 	public static final String CONNECTION_LIST_PREFSKEY = "mcc-connections"; //$NON-NLS-1$
 
+	// Connections saved in the preferences are restored in parallel, at most this many at a time
+	private static final int MAX_RESTORE_THREADS = 4;
+
+	private static final ExecutorService restoreExecutor;
+	static {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_RESTORE_THREADS, MAX_RESTORE_THREADS,
+				30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Microclimate connection restore " + count.incrementAndGet()); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		restoreExecutor = pool;
+	}
+
 	private List<MicroclimateConnection> connections = new ArrayList<>();
 	// this list tracks the URLs of connections that have never successfully connected
 	private List<String> brokenConnections = new ArrayList<>();
+	// The URLs of saved connections that are still being restored
+	private List<String> pendingConnections = new ArrayList<>();
+	// The position of each connection in the preferences, so restored connections keep their order
+	private Map<String, Integer> prefsOrder = new HashMap<>();
 
 	private MicroclimateConnectionManager() {
 		instance = this;
@@ -74,13 +105,15 @@ public class MicroclimateConnectionManager {
 		instance().connections.add(connection);
 		MCLogger.log("Added a new MCConnection: " + connection.baseUrl); //$NON-NLS-1$
 		instance().writeToPreferences();
+		ConnectionSnapshot.scheduleSave();
 	}
 
 	/**
 	 * @return An <b>unmodifiable</b> copy of the list of existing MC connections.
 	 */
 	public synchronized static List<MicroclimateConnection> activeConnections() {
-		return Collections.unmodifiableList(instance().connections);
+		// Connections are added by the restore threads so hand out a copy
+		return Collections.unmodifiableList(new ArrayList<MicroclimateConnection>(instance().connections));
 	}
 
 	public synchronized static MicroclimateConnection getActiveConnection(String baseUrl) {
@@ -110,14 +143,20 @@ public class MicroclimateConnectionManager {
 			connection.close();
 			removeResult = instance().connections.remove(connection);
 		}
+		else if (instance().brokenConnections.remove(baseUrl)) {
+			// Stop trying to reconnect rather than waiting for the next attempt to notice
+			MicroclimateReconnectSupervisor.remove(baseUrl);
+			removeResult = true;
+		}
 		else {
-			removeResult = instance().brokenConnections.remove(baseUrl);
+			removeResult = instance().pendingConnections.remove(baseUrl);
 		}
 
 		if (!removeResult) {
 			MCLogger.logError("Tried to remove MCConnection " + baseUrl + ", but it didn't exist"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		instance().writeToPreferences();
+		ConnectionSnapshot.scheduleSave();
 		MCUtil.updateAll();
 		return removeResult;
 	}
@@ -141,7 +180,15 @@ public class MicroclimateConnectionManager {
 	 * @return An <b>unmodifiable</b> copy of the list of broken MC Connection URLs.
 	 */
 	public synchronized static List<String> brokenConnections() {
-		return Collections.unmodifiableList(instance().brokenConnections);
+		return Collections.unmodifiableList(new ArrayList<String>(instance().brokenConnections));
+	}
+
+	/**
+	 * @return An <b>unmodifiable</b> copy of the list of saved connection URLs that are still being restored,
+	 * in the order they were saved.
+	 */
+	public synchronized static List<String> pendingConnections() {
+		return Collections.unmodifiableList(new ArrayList<String>(instance().pendingConnections));
 	}
 
 	public synchronized static String getBrokenConnection(String url) {
@@ -163,6 +210,9 @@ public class MicroclimateConnectionManager {
 		for (String mcc : brokenConnections()) {
 			prefsBuilder.append(mcc).append('\n');
 		}
+		for (String mcc : pendingConnections()) {
+			prefsBuilder.append(mcc).append('\n');
+		}
 
 		MCLogger.log("Writing connections to preferences: " + prefsBuilder.toString()); //$NON-NLS-1$
 
@@ -170,37 +220,100 @@ public class MicroclimateConnectionManager {
 				.setValue(CONNECTION_LIST_PREFSKEY, prefsBuilder.toString());
 	}
 
+	/**
+	 * Start restoring the connections saved in the preferences. Each connection is created on the restore
+	 * executor and published as soon as it is ready, so a slow or unreachable host does not hold up the others.
+	 * Unreachable hosts are added to the broken connections and go straight to the reconnect supervisor.
+	 */
 	private void loadFromPreferences() {
 		clear();
 
+		// Local file only, so the explorer can show the last known apps while the connections are restored
+		ConnectionSnapshot.load();
+
 		String storedConnections = MicroclimateCorePlugin.getDefault()
 				.getPreferenceStore()
 				.getString(CONNECTION_LIST_PREFSKEY).trim();
 
 		MCLogger.log("Reading connections from preferences: \"" + storedConnections + "\""); //$NON-NLS-1$ //$NON-NLS-2$
 
+		prefsOrder.clear();
+		pendingConnections.clear();
 		for(String line : storedConnections.split("\n")) { //$NON-NLS-1$
 			line = line.trim();
-			if(line.isEmpty()) {
+			if(line.isEmpty() || prefsOrder.containsKey(line)) {
 				continue;
 			}
+			prefsOrder.put(line, prefsOrder.size());
+			pendingConnections.add(line);
+
+			final String url = line;
+			restoreExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					restoreConnection(url);
+				}
+			});
+		}
+	}
 
-			try {
-				// Assume all connections are active. If they are broken they will be handled in the catch below.
-				URI uri = new URI(line);
-				MicroclimateConnection connection = MicroclimateObjectFactory.createMicroclimateConnection(uri);
-				add(connection);
-			}
-			catch (MicroclimateConnectionException mce) {
-				// The MC instance we wanted to connect to is down.
-				brokenConnections.add(mce.connectionUrl.toString());
-				MicroclimateReconnectJob.createAndStart(mce.connectionUrl);
+	private static void restoreConnection(String url) {
+		try {
+			// Assume all connections are active. If they are broken they will be handled in the catch below.
+			URI uri = new URI(url);
+			MicroclimateConnection connection = MicroclimateObjectFactory.createMicroclimateConnection(uri);
+			publish(url, connection);
+		}
+		catch (MicroclimateConnectionException mce) {
+			// The MC instance we wanted to connect to is down.
+			synchronized(MicroclimateConnectionManager.class) {
+				if (!instance().pendingConnections.remove(url)) {
+					// Removed by the user while it was being restored
+					return;
+				}
+				instance().brokenConnections.add(mce.connectionUrl.toString());
 			}
-			catch (Exception e) {
-				MCLogger.logError("Error loading MCConnection from preferences", e); //$NON-NLS-1$
+			MicroclimateReconnectSupervisor.add(mce.connectionUrl);
+			MCUtil.updateAll();
+		}
+		catch (Exception e) {
+			MCLogger.logError("Error loading MCConnection from preferences", e); //$NON-NLS-1$
+			synchronized(MicroclimateConnectionManager.class) {
+				instance().pendingConnections.remove(url);
 			}
+			MCUtil.updateAll();
 		}
+	}
 
+	/**
+	 * Add a connection restored from the preferences in its saved position. The preferences
+	 * are not written since they already contain the connection.
+	 */
+	private static void publish(String url, MicroclimateConnection connection) {
+		synchronized(MicroclimateConnectionManager.class) {
+			MicroclimateConnectionManager manager = instance();
+			if (!manager.pendingConnections.remove(url)) {
+				// Removed by the user while it was being restored
+				connection.close();
+				return;
+			}
+			Integer order = manager.prefsOrder.get(url);
+			int index = 0;
+			if (order == null) {
+				index = manager.connections.size();
+			} else {
+				for (MicroclimateConnection existing : manager.connections) {
+					Integer existingOrder = manager.prefsOrder.get(existing.toPrefsString());
+					if (existingOrder == null || existingOrder > order) {
+						break;
+					}
+					index++;
+				}
+			}
+			manager.connections.add(index, connection);
+			MCLogger.log("Restored MCConnection: " + connection.baseUrl); //$NON-NLS-1$
+		}
+		MCUtil.updateAll();
 	}
 
 	public static boolean removeConnection(String mcConnectionUrl) {
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2018, 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.osgi.util.NLS;
+
+import com.ibm.microclimate.core.internal.HttpUtil;
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.MCUtil;
+import com.ibm.microclimate.core.internal.MicroclimateObjectFactory;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+import com.ibm.microclimate.core.internal.messages.Messages;
+
+/**
+ * Keeps trying to create a MicroclimateConnection for each url that could not connect when the connections
+ * were loaded from the preferences, until it connects or the connection is deleted from the Preferences page.
+ *
+ * All urls share one scheduled executor. Each attempt first sends a HEAD request for the environment
+ * through {@link HttpUtil}, so it uses the same proxy settings as the connection, and only creates the
+ * connection if the server responds. Every few attempts the probe is skipped in case the server or a
+ * proxy does not answer HEAD requests. The delay between attempts doubles up to a cap, with jitter so
+ * that several hosts do not retry in step. {@link #retryNow()} skips the wait, for example when the
+ * user asks for a refresh.
+ *
+ * The attempts are not shown in the Progress view, so they cannot be cancelled there as the old
+ * reconnect jobs could. Instead, removing the connection from the Preferences page cancels its next
+ * attempt through {@link #remove(String)}.
+ */
+public class MicroclimateReconnectSupervisor {
+
+	public static final long INITIAL_DELAY_MS = 2000;
+	public static final long MAX_DELAY_MS = 60000;
+	// Timeout for the reachability check
+	static final int PROBE_TIMEOUT_MS = 2000;
+	// Make the full attempt without probing on every this many attempts
+	static final int FULL_ATTEMPT_INTERVAL = 5;
+
+	private static final ScheduledExecutorService executor;
+	static {
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate reconnect " + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		pool.setRemoveOnCancelPolicy(true);
+		executor = pool;
+	}
+
+	/**
+	 * The reconnect state for one url.
+	 */
+	private static class Reconnect implements Runnable {
+		final URI url;
+		// Guarded by this
+		int attempts = 0;
+		ScheduledFuture<?> next;
+		boolean running = false;
+		boolean retryRequested = false;
+		boolean cancelled = false;
+
+		Reconnect(URI url) {
+			this.url = url;
+		}
+
+		synchronized void schedule(long delay) {
+			if (cancelled) {
+				return;
+			}
+			if (running) {
+				// The running attempt schedules the next one
+				retryRequested = delay == 0;
+				return;
+			}
+			if (next != null) {
+				next.cancel(false);
+			}
+			next = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void run() {
+			int attempt;
+			synchronized(this) {
+				if (cancelled) {
+					return;
+				}
+				running = true;
+				next = null;
+				attempt = attempts;
+			}
+			boolean retry = false;
+			try {
+				retry = tryReconnect(url, attempt % FULL_ATTEMPT_INTERVAL != FULL_ATTEMPT_INTERVAL - 1);
+			} finally {
+				synchronized(this) {
+					running = false;
+					retry = retry && !cancelled;
+					if (retry) {
+						long delay = retryRequested ? 0 : getDelay(++attempts);
+						next = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+					}
+					retryRequested = false;
+				}
+				if (!retry) {
+					reconnects.remove(url.toString(), this);
+				}
+			}
+		}
+
+		synchronized void retryNow() {
+			attempts = 0;
+			schedule(0);
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			if (next != null) {
+				next.cancel(false);
+				next = null;
+			}
+		}
+	}
+
+	private static final Map<String, Reconnect> reconnects = new ConcurrentHashMap<String, Reconnect>();
+
+	private MicroclimateReconnectSupervisor() {}
+
+	/**
+	 * Start trying to reconnect to the given url. Does nothing if it is already being retried.
+	 */
+	static void add(URI url) {
+		Reconnect reconnect = new Reconnect(url);
+		if (reconnects.putIfAbsent(url.toString(), reconnect) == null) {
+			MCLogger.log("Scheduling reconnect to Microclimate at " + url); //$NON-NLS-1$
+			reconnect.schedule(getDelay(0));
+		}
+	}
+
+	/**
+	 * Stop trying to reconnect to the given url. An attempt that is already running finishes
+	 * but is not followed by another.
+	 */
+	static void remove(String url) {
+		Reconnect reconnect = reconnects.remove(url);
+		if (reconnect != null) {
+			MCLogger.log("Cancelling reconnect to Microclimate at " + url); //$NON-NLS-1$
+			reconnect.cancel();
+		}
+	}
+
+	/**
+	 * Try all of the broken connections again now rather than waiting for their next attempt.
+	 */
+	public static void retryNow() {
+		for (Reconnect reconnect : reconnects.values()) {
+			reconnect.retryNow();
+		}
+	}
+
+	/**
+	 * @return The number of urls being retried.
+	 */
+	public static int getCount() {
+		return reconnects.size();
+	}
+
+	/**
+	 * @return The delay before the next attempt: doubled for each failed attempt up to the cap,
+	 * then a random amount between half of that and all of it.
+	 */
+	public static long getDelay(int attempts) {
+		long delay = INITIAL_DELAY_MS << Math.min(attempts, 16);
+		delay = Math.min(delay, MAX_DELAY_MS);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	/**
+	 * @param probe Whether to check that the server responds before creating the connection.
+	 * @return true if the connection should be tried again later.
+	 */
+	private static boolean tryReconnect(URI url, boolean probe) {
+		// Note the connection can still be deleted through the Prefs page.
+		if (!MicroclimateConnectionManager.brokenConnections().contains(url.toString())) {
+			MCLogger.log("Stopping reconnect to Microclimate at " + url + " since the connection was removed"); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+
+		if (probe && !isReachable(url)) {
+			return true;
+		}
+
+		try {
+			MCLogger.log("Trying to reconnect to Microclimate at " + url); //$NON-NLS-1$
+
+			MicroclimateConnection newConnection = MicroclimateObjectFactory.createMicroclimateConnection(url);
+			if (newConnection != null) {
+				// connection re-established!
+				MCLogger.log("Successfully re-connected to Microclimate at " + url); //$NON-NLS-1$
+				MicroclimateConnectionManager.remove(url.toString());
+				MicroclimateConnectionManager.add(newConnection);
+				return false;
+			}
+		}
+		catch (MicroclimateConnectionException e) {
+			// nothing, the connection just failed. we'll try again.
+			return true;
+		}
+		catch (Exception e) {
+			// If any other exception occurs,
+			// it is most likely that this connection will never succeed.
+			MCLogger.logError(e);
+
+			MCUtil.openDialog(true, Messages.MicroclimateReconnectJob_ReconnectErrorDialogTitle,
+					NLS.bind(Messages.MicroclimateReconnectJob_ReconnectErrorDialogMsg, url));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the server responds to a HEAD request for the environment. Any response counts,
+	 * the full attempt decides whether it is a Microclimate server.
+	 */
+	private static boolean isReachable(URI url) {
+		try {
+			HttpUtil.head(url.resolve(MCConstants.APIPATH_ENV), PROBE_TIMEOUT_MS);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
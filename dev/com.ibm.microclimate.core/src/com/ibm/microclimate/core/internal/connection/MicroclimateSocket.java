@@ -14,17 +14,21 @@ package com.ibm.microclimate.core.internal.connection;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.osgi.util.NLS;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.ibm.microclimate.core.MicroclimateCorePlugin;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
@@ -54,15 +58,51 @@ public class MicroclimateSocket {
 
 	public final URI socketUri;
 
-	private boolean hasLostConnection = false;
+	// How long to wait for the first connection when setting up a connection
+	public static final long CONNECT_TIMEOUT_MS = 2500;
+
+	public enum State {
+		// Waiting for the first connection
+		CONNECTING,
+		CONNECTED,
+		// The connection failed or dropped
+		LOST,
+		// socket.io is trying to connect again after losing the connection
+		RECONNECTING,
+		CLOSED
+	}
 
-	private volatile boolean hasConnected = false;
+	// Guarded by this
+	private State state = State.CONNECTING;
 
-	private Set<OldSocketConsole> oldSocketConsoles = new HashSet<>();
-	
-	private Set<SocketConsole> socketConsoles = new HashSet<>();
+	// Completed by the first connect event. Fails if there is none within the connect timeout, or on close.
+	// A connect error does not fail it since socket.io keeps retrying and may still connect in time.
+	private final CompletableFuture<Void> connectFuture = new CompletableFuture<Void>();
+	// The last connect error, used as the cause if the connect times out
+	private volatile Exception lastConnectError;
+
+	// Fails the connect futures that time out
+	private static final ScheduledExecutorService connectTimer;
+	static {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate socket connect timeout"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		connectTimer = executor;
+	}
 	
-	private Map<String, IOperationHandler> projectCreateHandlers = new HashMap<String, IOperationHandler>();
+	private Map<String, IOperationHandler> projectCreateHandlers = new ConcurrentHashMap<String, IOperationHandler>();
+
+	// Runs the event handlers off the socket.io thread, in order for each project
+	private final ProjectEventDispatcher eventDispatcher;
+
+	// Merges bursts of status changes for a project into one update
+	private final ProjectStatusCoalescer statusCoalescer;
 
 	// Track the previous Exception so we don't spam the logs with the same connection failure message
 	private Exception previousException;
@@ -89,6 +129,26 @@ public class MicroclimateSocket {
 			uri = uri.resolve(mcConnection.getSocketNamespace());
 		}
 		socketUri = uri;
+		eventDispatcher = new ProjectEventDispatcher(socketUri.toString(), new ProjectEventDispatcher.OverflowListener() {
+			@Override
+			public void eventsDropped(String projectID) {
+				// Get the current state of the project from the server instead of the dropped events
+				mcConnection.refreshApps(projectID);
+			}
+		});
+		int statusWindow = MicroclimateCorePlugin.getDefault().getPreferenceStore()
+				.getInt(MicroclimateCorePlugin.STATUS_COALESCE_WINDOW_PREFSKEY);
+		statusCoalescer = new ProjectStatusCoalescer(statusWindow, new ProjectStatusCoalescer.Listener() {
+			@Override
+			public void statusChanged(String projectID, JSONObject event) {
+				queueEvent(EVENT_PROJECT_STATUS_CHANGE, projectID, event, new EventHandler() {
+					@Override
+					public void handle(JSONObject event) throws JSONException {
+						onProjectStatusChanged(event);
+					}
+				});
+			}
+		});
 
 		socket = IO.socket(socketUri);
 		
@@ -97,10 +157,9 @@ public class MicroclimateSocket {
 			public void call(Object... arg0) {
 				MCLogger.log("SocketIO connect success @ " + socketUri); //$NON-NLS-1$
 
-				if (!hasConnected) {
-					hasConnected = true;
-				}
-				if (hasLostConnection) {
+				State previous = setState(State.CONNECTED);
+				connectFuture.complete(null);
+				if (previous == State.LOST || previous == State.RECONNECTING) {
 					mcConnection.clearConnectionError();
 					previousException = null;
 				}
@@ -109,15 +168,38 @@ public class MicroclimateSocket {
 		.on(Socket.EVENT_CONNECT_ERROR, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				if (arg0[0] instanceof Exception) {
-					Exception e = (Exception) arg0[0];
-					if (previousException == null || !e.getMessage().equals(previousException.getMessage())) {
-						previousException = e;
-						MCLogger.logError("SocketIO Connect Error @ " + socketUri, e); //$NON-NLS-1$
+				Exception error = null;
+				if (arg0.length > 0 && arg0[0] instanceof Exception) {
+					error = (Exception) arg0[0];
+					if (previousException == null || !String.valueOf(error.getMessage()).equals(previousException.getMessage())) {
+						previousException = error;
+						MCLogger.logError("SocketIO Connect Error @ " + socketUri, error); //$NON-NLS-1$
 					}
 				}
-				mcConnection.onConnectionError();
-				hasLostConnection = true;
+				lastConnectError = error != null ? error : new IOException("SocketIO Connect Error @ " + socketUri); //$NON-NLS-1$
+				State previous = setState(State.LOST);
+				if (previous == State.CONNECTING) {
+					// Only report the initial connect failure here, a dropped connection is reported on disconnect
+					// and failed reconnect attempts are not reported at all
+					mcConnection.onConnectionError();
+				}
+			}
+		})
+		.on(Socket.EVENT_DISCONNECT, new Emitter.Listener() {
+			@Override
+			public void call(Object... arg0) {
+				MCLogger.log("SocketIO disconnect @ " + socketUri); //$NON-NLS-1$
+				State previous = setState(State.LOST);
+				if (previous == State.CONNECTED) {
+					// An established connection dropped
+					mcConnection.onConnectionError();
+				}
+			}
+		})
+		.on(Socket.EVENT_RECONNECTING, new Emitter.Listener() {
+			@Override
+			public void call(Object... arg0) {
+				setState(State.RECONNECTING);
 			}
 		})
 		.on(Socket.EVENT_ERROR, new Emitter.Listener() {
@@ -133,17 +215,26 @@ public class MicroclimateSocket {
 			@Override
 			public void call(Object... arg0) {
 				// Don't think this is ever used
-				MCLogger.log("SocketIO EVENT_MESSAGE " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log("SocketIO EVENT_MESSAGE " + arg0[0]); //$NON-NLS-1$
+				}
 			}
 		})
 		.on(EVENT_PROJECT_CREATION, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CREATION + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_CREATION + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectCreation(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_CREATION, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectCreation(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -152,11 +243,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_CHANGED, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CHANGED + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_CHANGED + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectChanged(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_CHANGED, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectChanged(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -165,11 +263,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_SETTINGS_CHANGED, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_SETTINGS_CHANGED + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_SETTINGS_CHANGED + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectSettingsChanged(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_SETTINGS_CHANGED, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectSettingsChanged(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -178,11 +283,14 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_STATUS_CHANGE, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_STATUS_CHANGE + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_STATUS_CHANGE + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectStatusChanged(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					// Bursts of status changes are merged before they are handled
+					statusCoalescer.add(event.optString(MCConstants.KEY_PROJECT_ID, null), event);
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -191,11 +299,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_RESTART, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_RESTART + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_RESTART + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectRestart(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_RESTART, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectRestart(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -204,11 +319,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_CLOSED, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_CLOSED + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_CLOSED + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectClosed(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_CLOSED, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectClosed(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -217,11 +339,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_DELETION, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_DELETION + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_DELETION + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectDeletion(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_DELETION, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectDeletion(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -234,8 +363,13 @@ public class MicroclimateSocket {
 				MCLogger.log(EVENT_CONTAINER_LOGS);
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onContainerLogs(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_CONTAINER_LOGS, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onContainerLogs(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -244,11 +378,18 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_LOGS_LIST_CHANGED, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_LOGS_LIST_CHANGED + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_LOGS_LIST_CHANGED + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onProjectLogsListChanged(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_LOGS_LIST_CHANGED, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onProjectLogsListChanged(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -261,8 +402,13 @@ public class MicroclimateSocket {
 				MCLogger.log(EVENT_LOG_UPDATE);
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onLogUpdate(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_LOG_UPDATE, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onLogUpdate(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
@@ -271,29 +417,118 @@ public class MicroclimateSocket {
 		.on(EVENT_PROJECT_VALIDATED, new Emitter.Listener() {
 			@Override
 			public void call(Object... arg0) {
-				MCLogger.log(EVENT_PROJECT_VALIDATED + ": " + arg0[0].toString()); //$NON-NLS-1$
+				if (MCLogger.isInfoEnabled()) {
+					MCLogger.log(EVENT_PROJECT_VALIDATED + ": " + arg0[0]); //$NON-NLS-1$
+				}
 
 				try {
-					JSONObject event = new JSONObject(arg0[0].toString());
-					onValidationEvent(event);
+					JSONObject event = toJSONObject(arg0[0]);
+					dispatch(EVENT_PROJECT_VALIDATED, event, new EventHandler() {
+						@Override
+						public void handle(JSONObject event) throws JSONException {
+							onValidationEvent(event);
+						}
+					});
 				} catch (JSONException e) {
 					MCLogger.logError("Error parsing JSON: " + arg0[0].toString(), e); //$NON-NLS-1$
 				}
 			}
 		});
 
+		MCLogger.log("Created MicroclimateSocket for " + socketUri); //$NON-NLS-1$
+	}
+
+	/**
+	 * Start connecting. The future completes when the socket first connects, or completes exceptionally
+	 * if it has not connected within {@link #CONNECT_TIMEOUT_MS}. socket.io keeps trying to connect after
+	 * a failed attempt, so a single connect error does not fail it.
+	 */
+	public CompletableFuture<Void> connect() {
 		socket.connect();
+		connectTimer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				Exception error = lastConnectError;
+				IOException timeout = new IOException("SocketIO did not connect in time @ " + socketUri); //$NON-NLS-1$
+				if (error != null) {
+					timeout.initCause(error);
+				}
+				connectFuture.completeExceptionally(timeout);
+			}
+		}, CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		return connectFuture;
+	}
 
-		MCLogger.log("Created MicroclimateSocket connected to " + socketUri); //$NON-NLS-1$
+	/**
+	 * Move to the given state unless the socket has been closed.
+	 * 
+	 * @return The previous state.
+	 */
+	private synchronized State setState(State newState) {
+		State previous = state;
+		if (previous != State.CLOSED) {
+			state = newState;
+		}
+		return previous;
+	}
+
+	public synchronized State getState() {
+		return state;
 	}
 	
 	public void close() {
+		setState(State.CLOSED);
+		connectFuture.completeExceptionally(new IOException("The socket was closed: " + socketUri)); //$NON-NLS-1$
 		if (socket != null) {
 			if (socket.connected()) {
 				socket.disconnect();
 			}
 			socket.close();
 		}
+		statusCoalescer.close();
+		eventDispatcher.close();
+	}
+
+	public ProjectEventDispatcher getEventDispatcher() {
+		return eventDispatcher;
+	}
+
+	/**
+	 * socket.io already delivers event data as a parsed JSONObject so use it as is rather than
+	 * serializing it and parsing it again. Anything else is parsed from its string form.
+	 */
+	public static JSONObject toJSONObject(Object data) throws JSONException {
+		if (data instanceof JSONObject) {
+			return (JSONObject) data;
+		}
+		return new JSONObject(data.toString());
+	}
+
+	private interface EventHandler {
+		void handle(JSONObject event) throws JSONException;
+	}
+
+	/**
+	 * Queue the handler so that it runs after any earlier events for the same project.
+	 */
+	private void dispatch(String eventName, JSONObject event, EventHandler handler) {
+		String projectID = event.optString(MCConstants.KEY_PROJECT_ID, null);
+		// A status change that is still being merged came first
+		statusCoalescer.flush(projectID);
+		queueEvent(eventName, projectID, event, handler);
+	}
+
+	private void queueEvent(final String eventName, final String projectID, final JSONObject event, final EventHandler handler) {
+		eventDispatcher.dispatch(projectID, eventName, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					handler.handle(event);
+				} catch (JSONException e) {
+					MCLogger.logError("Error processing the " + eventName + " event for project: " + projectID, e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		});
 	}
 	
 	private void onProjectCreation(JSONObject event) throws JSONException {
@@ -305,7 +540,6 @@ public class MicroclimateSocket {
 		} else {
 			MCLogger.logError("No application found matching the project id for the project creation event: " + projectID); //$NON-NLS-1$
 		}
-		MCUtil.updateConnection(mcConnection);
 		invokeProjectCreateHandler(app);
 	}
 
@@ -315,7 +549,6 @@ public class MicroclimateSocket {
 		if (app == null) {
 			// Likely a new project is being created
 			mcConnection.refreshApps(projectID);
-			MCUtil.updateConnection(mcConnection);
 			app = mcConnection.getAppByID(projectID);
 			invokeProjectCreateHandler(app);
 			return;
@@ -362,7 +595,6 @@ public class MicroclimateSocket {
 		if (app == null) {
 			// Likely a new project is being created
 			mcConnection.refreshApps(projectID);
-			MCUtil.updateConnection(mcConnection);
 			app = mcConnection.getAppByID(projectID);
 			invokeProjectCreateHandler(app);
 			return;
@@ -386,7 +618,6 @@ public class MicroclimateSocket {
 		if (app == null) {
 			// Likely a new project is being created
 			mcConnection.refreshApps(projectID);
-			MCUtil.updateConnection(mcConnection);
 			app = mcConnection.getAppByID(projectID);
 			invokeProjectCreateHandler(app);
 			return;
@@ -408,8 +639,6 @@ public class MicroclimateSocket {
 			}
 			app.setBuildStatus(buildStatus, detail);
 		}
-		
-		MCUtil.updateApplication(app);
 	}
 
 	private void onProjectRestart(JSONObject event) throws JSONException {
@@ -453,9 +682,6 @@ public class MicroclimateSocket {
 		StartMode startMode = StartMode.get(event);
 		app.setStartMode(startMode);
 		
-		// Update the application
-		MCUtil.updateApplication(app);
-		
 		// Make sure no old debugger is running
 		app.clearDebugger();
 		
@@ -472,7 +698,6 @@ public class MicroclimateSocket {
 			return;
 		}
 		app.setEnabled(false);
-		MCUtil.updateConnection(mcConnection);
 	}
 
 	private void onProjectDeletion(JSONObject event) throws JSONException {
@@ -482,26 +707,25 @@ public class MicroclimateSocket {
 			MCLogger.logError("No application found for project being deleted: " + projectID); //$NON-NLS-1$
 			return;
 		}
-		MCUtil.updateConnection(mcConnection);
 		app.dispose();
 	}
 
 	public void registerOldSocketConsole(OldSocketConsole console) {
 		MCLogger.log("Register socketConsole for projectID " + console.projectID); //$NON-NLS-1$
-		this.oldSocketConsoles.add(console);
+		mcConnection.getConsoleRegistry().register(console);
 	}
 
 	public void deregisterOldSocketConsole(OldSocketConsole console) {
-		this.oldSocketConsoles.remove(console);
+		mcConnection.getConsoleRegistry().deregister(console);
 	}
 	
 	public void registerSocketConsole(SocketConsole console) {
 		MCLogger.log("Register socketConsole for project: " + console.app.name); //$NON-NLS-1$
-		this.socketConsoles.add(console);
+		mcConnection.getConsoleRegistry().register(console);
 	}
 
 	public void deregisterSocketConsole(SocketConsole console) {
-		this.socketConsoles.remove(console);
+		mcConnection.getConsoleRegistry().deregister(console);
 	}
 	
 	public void registerProjectCreateHandler(String projectName, IOperationHandler handler) {
@@ -517,14 +741,12 @@ public class MicroclimateSocket {
 		String logContents = event.getString(MCConstants.KEY_LOGS);
 		MCLogger.log("Update logs for project " + projectID); //$NON-NLS-1$
 
-		for (OldSocketConsole console : this.oldSocketConsoles) {
-			if (console.projectID.equals(projectID)) {
-				try {
-					console.update(logContents);
-				}
-				catch(IOException e) {
-					MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
-				}
+		for (OldSocketConsole console : mcConnection.getConsoleRegistry().getOldSocketConsoles(projectID)) {
+			try {
+				console.update(logContents);
+			}
+			catch(IOException e) {
+				MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
 			}
 		}
 	}
@@ -535,16 +757,14 @@ public class MicroclimateSocket {
 		String logName = event.getString(MCConstants.KEY_LOG_NAME);
 		MCLogger.log("Update the " + logName + " log for project: " + projectID); //$NON-NLS-1$ //$NON-NLS-2$
 
-		for (SocketConsole console : this.socketConsoles) {
-			if (console.app.projectID.equals(projectID) && console.logInfo.isThisLogInfo(type, logName)) {
-				try {
-					String logContents = event.getString(MCConstants.KEY_LOGS);
-					boolean reset = event.getBoolean(MCConstants.KEY_LOG_RESET);
-					console.update(logContents, reset);
-				}
-				catch(IOException e) {
-					MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
-				}
+		for (SocketConsole console : mcConnection.getConsoleRegistry().getSocketConsoles(projectID, type, logName)) {
+			try {
+				String logContents = event.getString(MCConstants.KEY_LOGS);
+				boolean reset = event.getBoolean(MCConstants.KEY_LOG_RESET);
+				console.update(logContents, reset);
+			}
+			catch(IOException e) {
+				MCLogger.logError("Error updating console " + console.getName(), e);	// $NON-NLS-1$
 			}
 		}
 	}
@@ -555,7 +775,6 @@ public class MicroclimateSocket {
 		if (app == null) {
 			// Likely a new project is being created
 			mcConnection.refreshApps(projectID);
-			MCUtil.updateConnection(mcConnection);
 			app = mcConnection.getAppByID(projectID);
 			invokeProjectCreateHandler(app);
 			return;
@@ -639,27 +858,6 @@ public class MicroclimateSocket {
 		return false;
 	}
 
-	boolean blockUntilFirstConnection() {
-		final int delay = 100;
-		final int timeout = 2500;
-		int waited = 0;
-		while(!hasConnected && waited < timeout) {
-			try {
-				Thread.sleep(delay);
-				waited += delay;
-
-				if (waited % (5 * delay) == 0) {
-					MCLogger.log("Waiting for MicroclimateSocket initial connection"); //$NON-NLS-1$
-				}
-			}
-			catch(InterruptedException e) {
-				MCLogger.logError(e);
-			}
-		}
-		MCLogger.log("MicroclimateSocket initialized in time ? " + hasConnected); //$NON-NLS-1$
-		return hasConnected;
-	}
-	
 	private void invokeProjectCreateHandler(MicroclimateApplication app) {
 		if (app == null) {
 			return;
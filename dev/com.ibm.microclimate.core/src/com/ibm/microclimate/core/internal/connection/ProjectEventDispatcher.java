@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+
+/**
+ * Runs socket event handlers off the socket.io event thread. Each project has its own queue so
+ * events for one project are handled in the order they arrived, while events for different projects
+ * are handled in parallel. A slow handler only delays the events for its own project.
+ *
+ * Each project queue is bounded and the socket.io thread never waits for space, since that would hold
+ * up the events for every other project and the heartbeats. If a queue is full the event is dropped and
+ * counted, and once the events before it have been handled the overflow listener is called once so that
+ * the project can be brought up to date another way. A queue is removed when it is empty.
+ */
+public class ProjectEventDispatcher {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 500;
+
+	public interface OverflowListener {
+		/**
+		 * Called on a dispatcher thread, in order with the project's events, after events for
+		 * the project were dropped because its queue was full.
+		 */
+		void eventsDropped(String projectID);
+	}
+
+	// Shared by all connections, bounds the number of handlers running at the same time
+	private static final int MAX_THREADS = 8;
+
+	private static final ExecutorService executor;
+	static {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+				30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Microclimate event dispatcher " + count.incrementAndGet()); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		executor = pool;
+	}
+
+	private static class Event {
+		final String name;
+		final Runnable handler;
+		final long queuedTime;
+
+		Event(String name, Runnable handler) {
+			this.name = name;
+			this.handler = handler;
+			this.queuedTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The queue for one project. At most one executor task runs it at a time, and it
+	 * handles one event per task so that busy projects do not starve the others.
+	 */
+	private class ProjectQueue implements Runnable {
+		final String projectID;
+		// Guarded by this
+		final ArrayDeque<Event> events = new ArrayDeque<Event>();
+		boolean scheduled = false;
+		// Set when events were dropped and the overflow event has not started yet
+		boolean overflowed = false;
+		// Set once the queue has been removed from the map, it must not be used any more
+		boolean removed = false;
+
+		ProjectQueue(String projectID) {
+			this.projectID = projectID;
+		}
+
+		@Override
+		public void run() {
+			Event event;
+			synchronized(this) {
+				event = events.poll();
+			}
+			if (event != null) {
+				queueDepth.decrementAndGet();
+				handle(event);
+			}
+			synchronized(this) {
+				if (events.isEmpty() || closed) {
+					scheduled = false;
+					removed = true;
+					queues.remove(projectID, this);
+				} else {
+					executor.execute(this);
+				}
+			}
+		}
+
+		private void handle(Event event) {
+			long start = System.nanoTime();
+			queueWaitNanos.addAndGet(start - event.queuedTime);
+			try {
+				event.handler.run();
+			} catch (Exception e) {
+				MCLogger.logError("An error occurred handling the " + event.name + " event for project: " + projectID, e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			long time = System.nanoTime() - start;
+			handlerNanos.addAndGet(time);
+			handledCount.incrementAndGet();
+			updateMax(maxHandlerNanos, time);
+		}
+	}
+
+	private final String name;
+	private final int capacity;
+	// Can be null
+	private final OverflowListener overflowListener;
+	private final Map<String, ProjectQueue> queues = new ConcurrentHashMap<String, ProjectQueue>();
+	private volatile boolean closed = false;
+
+	// Metrics
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong maxQueueDepth = new AtomicLong();
+	private final AtomicLong handledCount = new AtomicLong();
+	private final AtomicLong handlerNanos = new AtomicLong();
+	private final AtomicLong maxHandlerNanos = new AtomicLong();
+	private final AtomicLong queueWaitNanos = new AtomicLong();
+	private final AtomicLong queueFullCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	public ProjectEventDispatcher(String name) {
+		this(name, DEFAULT_QUEUE_CAPACITY, null);
+	}
+
+	public ProjectEventDispatcher(String name, OverflowListener overflowListener) {
+		this(name, DEFAULT_QUEUE_CAPACITY, overflowListener);
+	}
+
+	public ProjectEventDispatcher(String name, int capacity, OverflowListener overflowListener) {
+		this.name = name;
+		this.capacity = capacity;
+		this.overflowListener = overflowListener;
+	}
+
+	/**
+	 * Queue the handler for the event on the given project's queue. Never blocks: if the queue is full
+	 * the event is dropped. Events without a project id are handled in order on their own queue.
+	 */
+	public void dispatch(final String projectID, String eventName, Runnable handler) {
+		while (!closed) {
+			ProjectQueue queue = getQueue(projectID == null ? "" : projectID); //$NON-NLS-1$
+			synchronized(queue) {
+				if (queue.removed) {
+					// Emptied and removed since it was looked up, use the new one
+					continue;
+				}
+				if (queue.events.size() >= capacity) {
+					droppedCount.incrementAndGet();
+					if (!queue.overflowed) {
+						queue.overflowed = true;
+						queueFullCount.incrementAndGet();
+						MCLogger.log("The event queue for project " + projectID + " on " + name //$NON-NLS-1$ //$NON-NLS-2$
+								+ " is full, dropping events starting with: " + eventName); //$NON-NLS-1$
+						// Goes over the capacity by one so that the project is brought up to date after
+						// the events that were kept. It starts after all of the dropped events arrived.
+						add(queue, new Event("overflow", new Runnable() { //$NON-NLS-1$
+							@Override
+							public void run() {
+								onOverflow(projectID);
+							}
+						}));
+					}
+					return;
+				}
+				add(queue, new Event(eventName, handler));
+				return;
+			}
+		}
+	}
+
+	// Must hold the queue's lock
+	private void add(ProjectQueue queue, Event event) {
+		queue.events.add(event);
+		updateMax(maxQueueDepth, queueDepth.incrementAndGet());
+		if (!queue.scheduled) {
+			queue.scheduled = true;
+			executor.execute(queue);
+		}
+	}
+
+	private void onOverflow(String projectID) {
+		ProjectQueue queue = queues.get(projectID == null ? "" : projectID); //$NON-NLS-1$
+		if (queue != null) {
+			synchronized(queue) {
+				// Events dropped from now on need another overflow event
+				queue.overflowed = false;
+			}
+		}
+		if (overflowListener != null) {
+			overflowListener.eventsDropped(projectID);
+		}
+	}
+
+	/**
+	 * Drop any events that have not been handled yet and stop accepting new ones.
+	 */
+	public void close() {
+		closed = true;
+		for (ProjectQueue queue : queues.values()) {
+			synchronized(queue) {
+				queueDepth.addAndGet(-queue.events.size());
+				queue.events.clear();
+			}
+		}
+		queues.clear();
+	}
+
+	private ProjectQueue getQueue(String projectID) {
+		ProjectQueue queue = queues.get(projectID);
+		if (queue == null) {
+			queue = new ProjectQueue(projectID);
+			ProjectQueue existing = queues.putIfAbsent(projectID, queue);
+			if (existing != null) {
+				queue = existing;
+			}
+		}
+		return queue;
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		while (value > (current = max.get())) {
+			if (max.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of events waiting to be handled across all projects.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * @return The highest number of events that have been waiting at the same time.
+	 */
+	public long getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * @return The number of times a project queue filled up and started dropping events.
+	 */
+	public long getQueueFullCount() {
+		return queueFullCount.get();
+	}
+
+	/**
+	 * @return The number of events dropped because their project queue was full.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * @return The number of project queues, which are only kept while they have events.
+	 */
+	public int getQueueCount() {
+		return queues.size();
+	}
+
+	public long getHandledCount() {
+		return handledCount.get();
+	}
+
+	/**
+	 * @return The average time in milliseconds that handlers took to run.
+	 */
+	public double getAverageHandlerTime() {
+		long count = handledCount.get();
+		return count == 0 ? 0 : (double) handlerNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * @return The longest time in milliseconds that a handler took to run.
+	 */
+	public long getMaxHandlerTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxHandlerNanos.get());
+	}
+
+	/**
+	 * @return The average time in milliseconds that events waited in a queue before being handled.
+	 */
+	public double getAverageQueueWaitTime() {
+		long count = handledCount.get();
+		return count == 0 ? 0 : (double) queueWaitNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.constants.BuildStatus;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * Merges bursts of projectStatusChanged events for the same project. The first event for a project
+ * starts a window, and any events that arrive before it ends are merged into it, keeping the latest
+ * appStatus, buildStatus and detailedBuildStatus. The merged event is delivered when the window ends
+ * or when another event for the project has to be handled first.
+ *
+ * A change to or from a complete build status (success or failed) is never merged away, so the
+ * application still sees every build complete.
+ *
+ * Events are delivered while holding the lock so that they stay in order for each project, even
+ * when the timer ends a window at the same time as {@link #flush(String)} is called. The listener
+ * must not block, it should only queue the event, for example on a {@link ProjectEventDispatcher}.
+ */
+public class ProjectStatusCoalescer {
+
+	public static final int DEFAULT_WINDOW_MS = 100;
+
+	public interface Listener {
+		void statusChanged(String projectID, JSONObject event);
+	}
+
+	private static final ScheduledExecutorService timer;
+	static {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Microclimate status coalescer"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		timer = executor;
+	}
+
+	private final Listener listener;
+	private final long windowMs;
+
+	// Guarded by this
+	private final Map<String, JSONObject> pendingEvents = new HashMap<String, JSONObject>();
+	private final Map<String, ScheduledFuture<?>> windowTimers = new HashMap<String, ScheduledFuture<?>>();
+	private boolean closed = false;
+
+	private final AtomicLong receivedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	public ProjectStatusCoalescer(long windowMs, Listener listener) {
+		this.windowMs = windowMs;
+		this.listener = listener;
+	}
+
+	public void add(final String projectID, final JSONObject event) {
+		receivedCount.incrementAndGet();
+		synchronized(this) {
+			if (closed) {
+				return;
+			}
+			if (windowMs <= 0) {
+				deliver(projectID, event);
+				return;
+			}
+			JSONObject pending = pendingEvents.get(projectID);
+			if (pending != null && !isBuildTransition(pending, event)) {
+				merge(pending, event);
+				return;
+			}
+			if (pending != null) {
+				endWindow(projectID);
+			}
+			// Start a new window
+			pendingEvents.put(projectID, event);
+			windowTimers.put(projectID, timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					flushWindow(projectID, event);
+				}
+			}, windowMs, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	/**
+	 * Deliver any pending status for the project now. Call this before handling another event
+	 * for the project so that events are still handled in order.
+	 */
+	public synchronized void flush(String projectID) {
+		endWindow(projectID);
+	}
+
+	/**
+	 * Flush the window that started with the given event, unless it has already ended. Runs on the timer.
+	 */
+	private synchronized void flushWindow(String projectID, JSONObject windowEvent) {
+		if (pendingEvents.get(projectID) == windowEvent) {
+			endWindow(projectID);
+		}
+	}
+
+	/**
+	 * End the project's window and deliver its event, if there is one. Must hold the lock.
+	 */
+	private void endWindow(String projectID) {
+		ScheduledFuture<?> windowTimer = windowTimers.remove(projectID);
+		if (windowTimer != null) {
+			windowTimer.cancel(false);
+		}
+		JSONObject pending = pendingEvents.remove(projectID);
+		if (pending != null) {
+			deliver(projectID, pending);
+		}
+	}
+
+	/**
+	 * Deliver all pending events and stop accepting new ones.
+	 */
+	public synchronized void close() {
+		closed = true;
+		for (String projectID : new ArrayList<String>(pendingEvents.keySet())) {
+			endWindow(projectID);
+		}
+	}
+
+	private void deliver(String projectID, JSONObject event) {
+		deliveredCount.incrementAndGet();
+		listener.statusChanged(projectID, event);
+	}
+
+	private static boolean isBuildTransition(JSONObject pending, JSONObject event) {
+		String pendingStatus = pending.optString(MCConstants.KEY_BUILD_STATUS, null);
+		String newStatus = event.optString(MCConstants.KEY_BUILD_STATUS, null);
+		if (pendingStatus == null || newStatus == null || pendingStatus.equals(newStatus)) {
+			return false;
+		}
+		return isComplete(pendingStatus) || isComplete(newStatus);
+	}
+
+	private static boolean isComplete(String buildStatus) {
+		return BuildStatus.SUCCESS.status.equals(buildStatus) || BuildStatus.FAILED.status.equals(buildStatus);
+	}
+
+	private static void merge(JSONObject pending, JSONObject event) {
+		try {
+			if (event.has(MCConstants.KEY_BUILD_STATUS)) {
+				// The detail belongs to the build status it came with
+				pending.remove(MCConstants.KEY_DETAILED_BUILD_STATUS);
+			}
+			Iterator<?> keys = event.keys();
+			while (keys.hasNext()) {
+				String key = (String) keys.next();
+				pending.put(key, event.get(key));
+			}
+		} catch (JSONException e) {
+			MCLogger.logError("Failed to merge project status event: " + event, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return The number of status events received.
+	 */
+	public long getReceivedCount() {
+		return receivedCount.get();
+	}
+
+	/**
+	 * @return The number of status events delivered after merging.
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+}
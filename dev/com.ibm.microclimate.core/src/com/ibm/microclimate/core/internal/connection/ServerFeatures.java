@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.constants.MCConstants;
+
+/**
+ * What a Microclimate server supports, worked out once from its version string.
+ *
+ * The version can be a release number like '1905' (v19.05), a branch version like
+ * '2019_M5_E' (year and iteration), 'latest' for development builds, or unknown.
+ * Use the feature flags rather than comparing versions.
+ */
+public class ServerFeatures {
+
+	public static final String UNKNOWN_VERSION = "unknown"; //$NON-NLS-1$
+
+	private static final Pattern BRANCH_PATTERN = Pattern.compile("(\\d{4})_M(\\d{1,2})_\\D"); //$NON-NLS-1$
+
+	public static final ServerFeatures UNKNOWN = new ServerFeatures(UNKNOWN_VERSION);
+
+	public final String versionStr;
+	// Whether this plug-in can work with the server at all
+	public final boolean supported;
+	// The project ID is part of the validate paths rather than the payload
+	public final boolean projectIDInPath;
+	// Log lists and log streaming for each project
+	public final boolean projectLogs;
+	// The metrics status request for each project
+	public final boolean metricsStatus;
+	// Creating projects from the template list
+	public final boolean projectTemplates;
+
+	private final boolean latest;
+	// Release number, or -1 if not a release version
+	private final int release;
+	// Year and iteration of a branch version, or -1 if not a branch version
+	private final int year, iteration;
+
+	private ServerFeatures(String versionStr) {
+		this.versionStr = versionStr;
+		this.latest = MCConstants.VERSION_LATEST.equals(versionStr);
+		int release = -1, year = -1, iteration = -1;
+		if (!latest && !UNKNOWN_VERSION.equals(versionStr)) {
+			Matcher matcher = BRANCH_PATTERN.matcher(versionStr);
+			if (matcher.matches()) {
+				year = Integer.parseInt(matcher.group(1));
+				iteration = Integer.parseInt(matcher.group(2));
+			} else {
+				try {
+					release = Integer.parseInt(versionStr);
+				} catch (NumberFormatException e) {
+					MCLogger.logError("Couldn't parse version number from " + versionStr); //$NON-NLS-1$
+				}
+			}
+		}
+		this.release = release;
+		this.year = year;
+		this.iteration = iteration;
+
+		// Any branch version is supported
+		this.supported = latest || year != -1 || release >= MCConstants.REQUIRED_MC_VERSION;
+		this.projectIDInPath = isAtLeast(1901, 2019, 1);
+		this.projectLogs = isAtLeast(1905, 2019, 5);
+		this.metricsStatus = projectLogs;
+		this.projectTemplates = projectLogs;
+	}
+
+	/**
+	 * @return The features for the given version string. Never null.
+	 */
+	public static ServerFeatures parse(String versionStr) {
+		if (versionStr == null || UNKNOWN_VERSION.equals(versionStr)) {
+			return UNKNOWN;
+		}
+		return new ServerFeatures(versionStr);
+	}
+
+	public boolean isUnknown() {
+		return UNKNOWN_VERSION.equals(versionStr);
+	}
+
+	/**
+	 * @return true if the server is at least the given release, or the given branch year and iteration.
+	 */
+	public boolean isAtLeast(int requiredRelease, int requiredYear, int requiredIteration) {
+		if (latest) {
+			return true;
+		}
+		if (year != -1) {
+			return year > requiredYear || (year == requiredYear && iteration >= requiredIteration);
+		}
+		return release != -1 && release >= requiredRelease;
+	}
+
+	/**
+	 * @return true if the server is at least the given release or branch version, for example 1905 or 2019_M5_E.
+	 */
+	public boolean isAtLeast(int requiredRelease, String requiredBranch) {
+		Matcher matcher = BRANCH_PATTERN.matcher(requiredBranch);
+		if (!matcher.matches()) {
+			MCLogger.logError("Failed to parse the required version: " + requiredBranch); //$NON-NLS-1$
+			return false;
+		}
+		return isAtLeast(requiredRelease, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s version=%s supported=%b projectIDInPath=%b projectLogs=%b metricsStatus=%b projectTemplates=%b", //$NON-NLS-1$
+				ServerFeatures.class.getSimpleName(), versionStr, supported, projectIDInPath, projectLogs,
+				metricsStatus, projectTemplates);
+	}
+}
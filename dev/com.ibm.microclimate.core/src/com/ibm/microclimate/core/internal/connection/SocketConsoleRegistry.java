@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ibm.microclimate.core.internal.console.OldSocketConsole;
+import com.ibm.microclimate.core.internal.console.SocketConsole;
+
+/**
+ * The consoles that show log output from socket events for one connection, indexed so that
+ * each log event can be routed to its consoles with a single lookup. Consoles can be
+ * registered and deregistered from any thread. Changes are synchronized, lookups are not.
+ */
+public class SocketConsoleRegistry {
+
+	/**
+	 * Identifies a log stream by project, log type and log name.
+	 */
+	private static final class LogKey {
+		final String projectID;
+		final String type;
+		final String logName;
+		final int hash;
+
+		LogKey(String projectID, String type, String logName) {
+			this.projectID = projectID;
+			this.type = type;
+			this.logName = logName;
+			int h = projectID.hashCode();
+			h = 31 * h + type.hashCode();
+			h = 31 * h + logName.hashCode();
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof LogKey)) {
+				return false;
+			}
+			LogKey other = (LogKey) obj;
+			return hash == other.hash && projectID.equals(other.projectID)
+					&& type.equals(other.type) && logName.equals(other.logName);
+		}
+	}
+
+	private final Map<LogKey, Set<SocketConsole>> socketConsoles = new ConcurrentHashMap<LogKey, Set<SocketConsole>>();
+	private final Map<String, Set<OldSocketConsole>> oldSocketConsoles = new ConcurrentHashMap<String, Set<OldSocketConsole>>();
+
+	public synchronized void register(SocketConsole console) {
+		LogKey key = new LogKey(console.app.projectID, console.logInfo.type, console.logInfo.logName);
+		Set<SocketConsole> consoles = socketConsoles.get(key);
+		if (consoles == null) {
+			consoles = ConcurrentHashMap.newKeySet();
+			socketConsoles.put(key, consoles);
+		}
+		consoles.add(console);
+	}
+
+	public synchronized void deregister(SocketConsole console) {
+		LogKey key = new LogKey(console.app.projectID, console.logInfo.type, console.logInfo.logName);
+		Set<SocketConsole> consoles = socketConsoles.get(key);
+		if (consoles != null) {
+			consoles.remove(console);
+			if (consoles.isEmpty()) {
+				socketConsoles.remove(key);
+			}
+		}
+	}
+
+	public synchronized void register(OldSocketConsole console) {
+		Set<OldSocketConsole> consoles = oldSocketConsoles.get(console.projectID);
+		if (consoles == null) {
+			consoles = ConcurrentHashMap.newKeySet();
+			oldSocketConsoles.put(console.projectID, consoles);
+		}
+		consoles.add(console);
+	}
+
+	public synchronized void deregister(OldSocketConsole console) {
+		Set<OldSocketConsole> consoles = oldSocketConsoles.get(console.projectID);
+		if (consoles != null) {
+			consoles.remove(console);
+			if (consoles.isEmpty()) {
+				oldSocketConsoles.remove(console.projectID);
+			}
+		}
+	}
+
+	/**
+	 * @return The consoles showing the given log, never null.
+	 */
+	public Set<SocketConsole> getSocketConsoles(String projectID, String type, String logName) {
+		Set<SocketConsole> consoles = socketConsoles.get(new LogKey(projectID, type, logName));
+		return consoles != null ? consoles : Collections.<SocketConsole>emptySet();
+	}
+
+	/**
+	 * @return All of the registered socket consoles.
+	 */
+	public List<SocketConsole> getSocketConsoles() {
+		List<SocketConsole> consoles = new ArrayList<SocketConsole>();
+		for (Set<SocketConsole> set : socketConsoles.values()) {
+			consoles.addAll(set);
+		}
+		return consoles;
+	}
+
+	/**
+	 * @return The consoles showing the container log for the given project, never null.
+	 */
+	public Set<OldSocketConsole> getOldSocketConsoles(String projectID) {
+		Set<OldSocketConsole> consoles = oldSocketConsoles.get(projectID);
+		return consoles != null ? consoles : Collections.<OldSocketConsole>emptySet();
+	}
+
+	/**
+	 * @return The number of consoles currently receiving log output.
+	 */
+	public int getActiveStreamCount() {
+		int count = 0;
+		for (Set<SocketConsole> consoles : socketConsoles.values()) {
+			count += consoles.size();
+		}
+		for (Set<OldSocketConsole> consoles : oldSocketConsoles.values()) {
+			count += consoles.size();
+		}
+		return count;
+	}
+}
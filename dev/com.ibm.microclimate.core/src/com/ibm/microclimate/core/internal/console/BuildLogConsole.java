@@ -12,6 +12,7 @@
 package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
+import java.io.Reader;
 
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
@@ -27,6 +28,8 @@ public class BuildLogConsole extends IOConsole {
 	private double lastModified = 0;
 	private final BuildLogMonitor monitor;
 	private final Thread monitorThread;
+	// Reused for every update so that copying the build log does not allocate a new buffer each time
+	private final char[] buffer = new char[8192];
 	
 	public BuildLogConsole(String name, MicroclimateApplication app) {
 		super(name, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -50,7 +53,10 @@ public class BuildLogConsole extends IOConsole {
 		return false;
 	}
 	
-	public synchronized void update(String content, double lastModified, boolean replace) {
+	/**
+	 * Copy the build log from the given reader into the console. The reader is not closed.
+	 */
+	public synchronized void update(Reader content, double lastModified, boolean replace) {
 		if (outputStream.isClosed()) {
 			return;
 		}
@@ -60,7 +66,10 @@ public class BuildLogConsole extends IOConsole {
 			clearConsole();
 		}
 		try {
-			outputStream.write(content);
+			int read;
+			while ((read = content.read(buffer)) != -1) {
+				outputStream.write(String.valueOf(buffer, 0, read));
+			}
 		} catch (IOException e) {
 			MCLogger.logError("Failed to write to the build console for application: " + app.name, e); //$NON-NLS-1$
 		}
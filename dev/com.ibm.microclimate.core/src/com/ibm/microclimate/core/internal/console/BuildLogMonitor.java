@@ -16,6 +16,7 @@ import java.net.URI;
 
 import com.ibm.microclimate.core.internal.HttpUtil;
 import com.ibm.microclimate.core.internal.HttpUtil.HttpResult;
+import com.ibm.microclimate.core.internal.HttpUtil.HttpStreamResult;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.constants.MCConstants;
@@ -44,14 +45,14 @@ public class BuildLogMonitor implements Runnable {
 					double timestamp = Double.parseDouble(timestampStr);
 					if (console.hasChanged(timestamp)) {
 						// Now get the contents
-						result = HttpUtil.get(uri);
-						if (result.isGoodResponse ) {
-							timestampStr = result.getHeader(MCConstants.KEY_BUILD_LOG_LAST_MODIFIED);
-							timestamp = Double.parseDouble(timestampStr);
-							String contents = result.response;
-							console.update(contents, timestamp, true);
-						} else {
-							MCLogger.logError("Get request failed for " + uri + ": " + result.error); //$NON-NLS-1$
+						try (HttpStreamResult streamResult = HttpUtil.getStream(uri)) {
+							if (streamResult.isGoodResponse) {
+								timestampStr = streamResult.getHeader(MCConstants.KEY_BUILD_LOG_LAST_MODIFIED);
+								timestamp = Double.parseDouble(timestampStr);
+								console.update(streamResult.getReader(), timestamp, true);
+							} else {
+								MCLogger.logError("Get request failed for " + uri + ": " + streamResult.error); //$NON-NLS-1$
+							}
 						}
 					}
 				} else {
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.core.internal.console;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+import com.ibm.microclimate.core.internal.MCLogger;
+import com.ibm.microclimate.core.internal.messages.Messages;
+
+/**
+ * A bounded buffer between the socket events for a log and the console that shows it.
+ * Log output is queued by the event thread and written to the console by a background job,
+ * so a slow console does not hold up event handling. What happens when the buffer is full
+ * depends on the policy.
+ */
+public class LogBuffer {
+
+	public enum Policy {
+		// Wait for the console to catch up
+		BLOCK("block"), //$NON-NLS-1$
+		// Write everything that is queued as one write, and wait if the buffer is full
+		MERGE("merge"), //$NON-NLS-1$
+		// Drop the oldest lines and show how many were skipped
+		DROP_OLDEST("dropOldest"); //$NON-NLS-1$
+
+		public final String id;
+
+		private Policy(String id) {
+			this.id = id;
+		}
+
+		public static Policy get(String id) {
+			for (Policy policy : Policy.values()) {
+				if (policy.id.equals(id)) {
+					return policy;
+				}
+			}
+			return MERGE;
+		}
+	}
+
+	public interface Writer {
+		void clear();
+		void write(String text) throws IOException;
+	}
+
+	public static final Policy DEFAULT_POLICY = Policy.MERGE;
+	// In characters
+	public static final int DEFAULT_CAPACITY = 512 * 1024;
+
+	private final Writer writer;
+	private final Policy policy;
+	private final int capacity;
+	private final Job writerJob;
+
+	// Guarded by this
+	private final ArrayDeque<String> chunks = new ArrayDeque<String>();
+	// Characters queued or being written
+	private int backlog = 0;
+	// Characters queued but not yet taken by the writer
+	private int queued = 0;
+	private boolean clearPending = false;
+	private int skippedLines = 0;
+	private boolean disposed = false;
+
+	// Metrics
+	private final AtomicLong droppedLines = new AtomicLong();
+	private final AtomicLong writtenChars = new AtomicLong();
+	private long rateWindowStart = System.nanoTime();
+	private long rateWindowChars = 0;
+	private volatile double charsPerSecond = 0;
+
+	public LogBuffer(String name, Policy policy, int capacity, Writer writer) {
+		this.writer = writer;
+		this.policy = policy;
+		this.capacity = capacity;
+		writerJob = new Job(name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				drain();
+				return Status.OK_STATUS;
+			}
+		};
+		writerJob.setSystem(true);
+	}
+
+	/**
+	 * Queue log output for the console. If reset is true, the console is cleared first and
+	 * anything still queued is discarded.
+	 *
+	 * @throws InterruptedIOException if interrupted while waiting for space in the buffer.
+	 */
+	public void add(String contents, boolean reset) throws InterruptedIOException {
+		synchronized(this) {
+			if (disposed) {
+				return;
+			}
+			if (reset) {
+				backlog -= queued;
+				queued = 0;
+				chunks.clear();
+				skippedLines = 0;
+				clearPending = true;
+			}
+			if (contents.isEmpty() && !reset) {
+				return;
+			}
+			if (policy == Policy.DROP_OLDEST) {
+				chunks.add(contents);
+				queued += contents.length();
+				backlog += contents.length();
+				dropOldest();
+			} else {
+				try {
+					// Always accept a chunk when the buffer is empty, even if it is bigger than the capacity
+					while (backlog > 0 && backlog + contents.length() > capacity && !disposed) {
+						wait();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+				if (disposed) {
+					return;
+				}
+				chunks.add(contents);
+				queued += contents.length();
+				backlog += contents.length();
+			}
+		}
+		writerJob.schedule();
+	}
+
+	/**
+	 * Write everything that is queued. Runs on the writer job.
+	 */
+	private void drain() {
+		while (true) {
+			boolean clear;
+			String text;
+			synchronized(this) {
+				if (disposed || (chunks.isEmpty() && !clearPending)) {
+					return;
+				}
+				clear = clearPending;
+				clearPending = false;
+				StringBuilder builder = new StringBuilder();
+				if (skippedLines > 0) {
+					builder.append(NLS.bind(Messages.LogBufferLinesSkipped, skippedLines)).append('\n');
+					skippedLines = 0;
+				}
+				if (policy == Policy.BLOCK) {
+					// One write per chunk
+					String chunk = chunks.poll();
+					if (chunk != null) {
+						builder.append(chunk);
+					}
+				} else {
+					// Everything queued in one write
+					for (String chunk : chunks) {
+						builder.append(chunk);
+					}
+					chunks.clear();
+				}
+				text = builder.toString();
+				// The text stays in the backlog until it has been written
+				queued = 0;
+				for (String chunk : chunks) {
+					queued += chunk.length();
+				}
+			}
+
+			if (clear) {
+				writer.clear();
+			}
+			if (!text.isEmpty()) {
+				try {
+					writer.write(text);
+				} catch (IOException e) {
+					MCLogger.logError("Failed to write log output to the console: " + writerJob.getName(), e); //$NON-NLS-1$
+				}
+				recordWrite(text.length());
+			}
+
+			synchronized(this) {
+				backlog = queued;
+				// Let any waiting producer add more
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Drop whole lines from the oldest chunks until the backlog fits. Must hold the lock.
+	 */
+	private void dropOldest() {
+		while (backlog > capacity && !chunks.isEmpty()) {
+			String oldest = chunks.peek();
+			int excess = backlog - capacity;
+			if (oldest.length() <= excess || chunks.size() > 1) {
+				chunks.poll();
+				queued -= oldest.length();
+				backlog -= oldest.length();
+				countDropped(oldest, 0, oldest.length());
+			} else {
+				// Only one chunk and it is too big, so keep its end starting at a line boundary
+				int cut = oldest.indexOf('\n', excess - 1);
+				cut = cut < 0 ? oldest.length() : cut + 1;
+				countDropped(oldest, 0, cut);
+				chunks.poll();
+				String rest = oldest.substring(cut);
+				queued -= cut;
+				backlog -= cut;
+				if (!rest.isEmpty()) {
+					chunks.add(rest);
+				}
+			}
+		}
+	}
+
+	private void countDropped(String text, int start, int end) {
+		int lines = 0;
+		for (int i = start; i < end; i++) {
+			if (text.charAt(i) == '\n') {
+				lines++;
+			}
+		}
+		if (end > start && text.charAt(end - 1) != '\n') {
+			// Partial line at the end
+			lines++;
+		}
+		skippedLines += lines;
+		droppedLines.addAndGet(lines);
+	}
+
+	private void recordWrite(int chars) {
+		writtenChars.addAndGet(chars);
+		long now = System.nanoTime();
+		synchronized(this) {
+			rateWindowChars += chars;
+			long elapsed = now - rateWindowStart;
+			if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+				charsPerSecond = (double) rateWindowChars * TimeUnit.SECONDS.toNanos(1) / elapsed;
+				rateWindowStart = now;
+				rateWindowChars = 0;
+			}
+		}
+	}
+
+	/**
+	 * Discard anything queued and release any waiting producer.
+	 */
+	public void dispose() {
+		synchronized(this) {
+			disposed = true;
+			chunks.clear();
+			queued = 0;
+			backlog = 0;
+			notifyAll();
+		}
+		writerJob.cancel();
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return The number of characters waiting to be written to the console.
+	 */
+	public synchronized int getBacklog() {
+		return backlog;
+	}
+
+	/**
+	 * @return The number of lines dropped because the buffer was full.
+	 */
+	public long getDroppedLines() {
+		return droppedLines.get();
+	}
+
+	/**
+	 * @return The number of characters written to the console.
+	 */
+	public long getWrittenChars() {
+		return writtenChars.get();
+	}
+
+	/**
+	 * @return The write rate in characters per second, measured over roughly the last second of writes.
+	 */
+	public double getCharsPerSecond() {
+		return charsPerSecond;
+	}
+}
@@ -11,6 +11,8 @@
 
 package com.ibm.microclimate.core.internal.console;
 
+import java.util.Objects;
+
 public class ProjectLogInfo {
 	
 	public final String type;
@@ -31,4 +33,21 @@ public class ProjectLogInfo {
 		return (this.type.equals(logInfo.type) && this.logName.equals(logInfo.logName));
 	}
 
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ProjectLogInfo)) {
+			return false;
+		}
+		ProjectLogInfo other = (ProjectLogInfo) obj;
+		return isThisLogInfo(other) && Objects.equals(workspaceLogPath, other.workspaceLogPath);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, logName, workspaceLogPath);
+	}
+
 }
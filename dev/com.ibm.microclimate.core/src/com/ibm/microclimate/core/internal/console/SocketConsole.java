@@ -12,7 +12,10 @@
 package com.ibm.microclimate.core.internal.console;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
 
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.console.IOConsole;
 import org.eclipse.ui.console.IOConsoleOutputStream;
 
@@ -29,8 +32,19 @@ public class SocketConsole extends IOConsole {
 	private final MicroclimateSocket socket;
 
 	private IOConsoleOutputStream outputStream;
+	private final LogBuffer logBuffer;
 	private boolean isInitialized = false;
-	private boolean showOnUpdate = false;
+	private volatile boolean showOnUpdate = false;
+
+	// How much of the log has been received since it was last reset, and its checksum, so that
+	// the stream can be resumed from where it stopped. Guarded by this.
+	private long receivedChars = 0;
+	private final CRC32 receivedChecksum = new CRC32();
+	// Set while waiting for the first update after resuming
+	private long resumeOffset = -1;
+	private long resumeChecksum = 0;
+	// Set once the resume request has been accepted, so later updates belong to the resumed stream
+	private boolean resumeRequested = false;
 
 	public SocketConsole(String consoleName, ProjectLogInfo logInfo, MicroclimateApplication app) {
 		super(consoleName, MicroclimateConsoleFactory.MC_CONSOLE_TYPE,
@@ -40,6 +54,26 @@ public class SocketConsole extends IOConsole {
 		this.app = app;
 		this.logInfo = logInfo;
 		this.outputStream = newOutputStream();
+
+		IPreferenceStore prefs = MicroclimateCorePlugin.getDefault().getPreferenceStore();
+		LogBuffer.Policy policy = LogBuffer.Policy.get(prefs.getString(MicroclimateCorePlugin.LOG_BUFFER_POLICY_PREFSKEY));
+		int capacity = prefs.getInt(MicroclimateCorePlugin.LOG_BUFFER_SIZE_PREFSKEY);
+		this.logBuffer = new LogBuffer(consoleName, policy, capacity > 0 ? capacity : LogBuffer.DEFAULT_CAPACITY,
+				new LogBuffer.Writer() {
+					@Override
+					public void clear() {
+						clearConsole();
+					}
+
+					@Override
+					public void write(String text) throws IOException {
+						outputStream.write(text);
+						if (showOnUpdate) {
+							activate();
+						}
+					}
+				});
+
 		this.socket = app.mcConnection.getMCSocket();
 		socket.registerSocketConsole(this);
 
@@ -51,17 +85,107 @@ public class SocketConsole extends IOConsole {
 		}
 	}
 
+	/**
+	 * Queue log output to be written to the console. Depending on the log buffer policy this
+	 * may wait for the console to catch up.
+	 */
 	public void update(String contents, boolean reset) throws IOException {
-		if (!isInitialized || reset) {
-			clearConsole();
+		boolean clear;
+		synchronized(this) {
+			if (resumeOffset >= 0) {
+				if (reset) {
+					// The server usually sends the whole log again. If it starts with what is already
+					// shown, skip that part. Otherwise the log really was reset while disconnected,
+					// for example the container restarted, so clear the console.
+					long skip = getResentChars(contents);
+					if (skip > 0) {
+						MCLogger.log("Skipping " + skip + " characters already shown in: " + getName()); //$NON-NLS-1$ //$NON-NLS-2$
+						contents = contents.substring((int) skip);
+						reset = false;
+					}
+					endResume();
+				} else if (resumeRequested) {
+					// The server honoured the offset and sent the rest of the log
+					endResume();
+				}
+				// Otherwise this is left over from before the resume so the resume is still pending
+			}
+			clear = !isInitialized || reset;
 			isInitialized = true;
+			if (clear) {
+				receivedChars = 0;
+				receivedChecksum.reset();
+			}
+			receivedChars += contents.length();
+			receivedChecksum.update(contents.getBytes(StandardCharsets.UTF_8));
 		}
 
 		MCLogger.log("Appending contents to log: " + this.getName());		// $NON-NLS-1$
-		outputStream.write(contents);
-		if (showOnUpdate) {
-			activate();
+		logBuffer.add(contents, clear);
+	}
+
+	/**
+	 * @return The number of characters at the start of the contents that are already in the console,
+	 * or 0 if the contents don't start with the log received so far.
+	 */
+	private long getResentChars(String contents) {
+		// Updates left over from before the resume may have been received since
+		if (startsWithReceived(contents, receivedChars, receivedChecksum.getValue())) {
+			return receivedChars;
+		}
+		if (startsWithReceived(contents, resumeOffset, resumeChecksum)) {
+			return resumeOffset;
 		}
+		return 0;
+	}
+
+	private static boolean startsWithReceived(String contents, long length, long expectedChecksum) {
+		if (length <= 0 || contents.length() < length) {
+			return false;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(contents.substring(0, (int) length).getBytes(StandardCharsets.UTF_8));
+		return checksum.getValue() == expectedChecksum;
+	}
+
+	private void endResume() {
+		resumeOffset = -1;
+		resumeRequested = false;
+	}
+
+	/**
+	 * Enable the log stream again after the connection was lost, asking only for the
+	 * part of the log that has not been received yet.
+	 */
+	public void resume() throws IOException {
+		long offset;
+		synchronized(this) {
+			offset = isInitialized ? receivedChars : 0;
+			resumeOffset = offset > 0 ? offset : -1;
+			resumeChecksum = receivedChecksum.getValue();
+			resumeRequested = false;
+		}
+		MCLogger.log("Resume console " + getName() + " at offset: " + offset); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			app.mcConnection.requestEnableLogStream(app, logInfo, offset);
+		} catch (IOException e) {
+			synchronized(this) {
+				endResume();
+			}
+			throw e;
+		}
+		synchronized(this) {
+			if (resumeOffset >= 0) {
+				resumeRequested = true;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of characters of the log received since it was last reset.
+	 */
+	public synchronized long getReceivedChars() {
+		return receivedChars;
 	}
 
 	@Override
@@ -69,6 +193,9 @@ public class SocketConsole extends IOConsole {
 		MCLogger.log("Dispose console " + getName()); //$NON-NLS-1$
 
 		socket.deregisterSocketConsole(this);
+		MCLogger.log("Log buffer for " + getName() + ": written=" + logBuffer.getWrittenChars() //$NON-NLS-1$ //$NON-NLS-2$
+				+ " dropped lines=" + logBuffer.getDroppedLines() + " backlog=" + logBuffer.getBacklog()); //$NON-NLS-1$ //$NON-NLS-2$
+		logBuffer.dispose();
 
 		try {
 			app.mcConnection.requestDisableLogStream(app, logInfo);
@@ -83,4 +210,11 @@ public class SocketConsole extends IOConsole {
 	public void setShowOnUpdate(boolean value) {
 		showOnUpdate = value;
 	}
+
+	/**
+	 * @return The buffer for this console, for its backlog, drop and throughput metrics.
+	 */
+	public LogBuffer getLogBuffer() {
+		return logBuffer;
+	}
 }
@@ -132,6 +132,7 @@ public class MCConstants {
 			
 			QUERY_PROJECT = "project",
 			QUERY_VIEW = "view",
+			QUERY_LOG_OFFSET = "offset",
 			VIEW_MONITOR = "monitor",
 			VIEW_OVERVIEW = "overview"
 
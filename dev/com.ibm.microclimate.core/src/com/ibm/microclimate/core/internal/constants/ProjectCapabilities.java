@@ -112,6 +112,24 @@ public class ProjectCapabilities {
 		// Intentionally empty
 	}
 	
+	/**
+	 * @return The capabilities in the same form they are received in.
+	 */
+	public JSONObject toJSON() throws JSONException {
+		JSONArray modes = new JSONArray();
+		for (StartMode mode : startModes) {
+			modes.put(mode.getName());
+		}
+		JSONArray commands = new JSONArray();
+		for (ControlCommand command : controlCommands) {
+			commands.put(command.getName());
+		}
+		JSONObject capabilities = new JSONObject();
+		capabilities.put(MCConstants.KEY_START_MODES, modes);
+		capabilities.put(MCConstants.KEY_CONTROL_COMMANDS, commands);
+		return capabilities;
+	}
+	
 	public boolean canRestart() {
 		return controlCommands.contains(ControlCommand.RESTART);
 	}
@@ -29,7 +29,6 @@ public class Messages extends NLS {
 
 	public static String MicroclimateReconnectJob_ReconnectErrorDialogMsg;
 	public static String MicroclimateReconnectJob_ReconnectErrorDialogTitle;
-	public static String MicroclimateReconnectJob_ReconnectJobName;
 
 	public static String MicroclimateServerBehaviour_DebugLaunchConfigName;
 	public static String MicroclimateServerBehaviour_DebuggerConnectFailureDialogTitle;
@@ -39,6 +38,7 @@ public class Messages extends NLS {
 	public static String AppConsoleName;
 	public static String LogFileConsoleName;
 	public static String LogFileInitialMsg;
+	public static String LogBufferLinesSkipped;
 
 	public static String FileNotFoundTitle;
 	public static String FileNotFoundMsg;
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.io.File;
+import java.io.Reader;
+import java.net.URI;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.HttpResponseCache;
+import com.ibm.microclimate.core.internal.HttpResponseCache.CachedResult;
+import com.ibm.microclimate.test.util.StubHttpServer;
+import com.ibm.microclimate.test.util.StubHttpServer.StubResponse;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the project list response cache against a local stand-in server.
+ */
+public class HttpResponseCacheTest extends TestCase {
+
+	private static final String PROJECTS_PATH = "/api/v1/projects";
+
+	// The current project list and its version, changed by the tests
+	private volatile String projectsJson = "[{\"projectID\":\"a\"}]";
+	private volatile int version = 1;
+
+	private StubHttpServer server;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (server != null) {
+			server.stop();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testETag() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		server = new StubHttpServer(new StubHttpServer.Handler() {
+			@Override
+			public void handle(String method, String path, Map<String, String> requestHeaders, StubResponse response) {
+				String etag = "\"" + version + "\"";
+				response.headers.put(HttpResponseCache.HEADER_ETAG, etag);
+				if (etag.equals(requestHeaders.get("if-none-match"))) {
+					response.code = 304;
+				} else {
+					response.body = projectsJson;
+				}
+			}
+		});
+		checkHitRate();
+	}
+
+	@Test
+	public void testContentHash() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		server = new StubHttpServer(new StubHttpServer.Handler() {
+			@Override
+			public void handle(String method, String path, Map<String, String> requestHeaders, StubResponse response) {
+				// No validators so the cache has to compare the content
+				response.body = projectsJson;
+			}
+		});
+		checkHitRate();
+	}
+
+	@Test
+	public void testUncommitted() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		server = new StubHttpServer(new StubHttpServer.Handler() {
+			@Override
+			public void handle(String method, String path, Map<String, String> requestHeaders, StubResponse response) {
+				response.headers.put(HttpResponseCache.HEADER_ETAG, "\"" + version + "\"");
+				response.body = projectsJson;
+			}
+		});
+		HttpResponseCache cache = new HttpResponseCache();
+		URI uri = server.getURI(PROJECTS_PATH);
+		for (int i = 0; i < 3; i++) {
+			try (CachedResult result = cache.get(uri)) {
+				// Not committed so the next request must not be treated as unchanged
+				assertTrue("The result should be modified", result.isModified);
+			}
+		}
+		assertEquals("Hit count", 0, cache.getHitCount());
+	}
+
+	private void checkHitRate() throws Exception {
+		int tempFiles = countTempFiles();
+		HttpResponseCache cache = new HttpResponseCache();
+		URI uri = server.getURI(PROJECTS_PATH);
+
+		// First request has to process the content
+		fetch(cache, uri, true, 1);
+
+		// Nothing changed
+		for (int i = 0; i < 4; i++) {
+			fetch(cache, uri, false, 0);
+		}
+
+		// The list changes once
+		projectsJson = "[{\"projectID\":\"a\"},{\"projectID\":\"b\"}]";
+		version++;
+		fetch(cache, uri, true, 2);
+		for (int i = 0; i < 4; i++) {
+			fetch(cache, uri, false, 0);
+		}
+
+		// After invalidating the content is processed again
+		cache.invalidateAll();
+		fetch(cache, uri, true, 2);
+
+		assertEquals("Request count", 11, server.getRequestCount());
+		assertEquals("Hit count", 8, cache.getHitCount());
+		assertEquals("Miss count", 3, cache.getMissCount());
+		TestUtil.print("Hit rate: " + cache.getHitCount() + "/" + server.getRequestCount());
+		assertEquals("Temporary files left behind", tempFiles, countTempFiles());
+	}
+
+	private void fetch(HttpResponseCache cache, URI uri, boolean expectModified, int expectedLength) throws Exception {
+		try (CachedResult result = cache.get(uri)) {
+			assertTrue("The response should be good", result.isGoodResponse);
+			assertEquals("Modified", expectModified, result.isModified);
+			Reader reader = result.getReader();
+			if (expectModified) {
+				assertNotNull("The reader should not be null", reader);
+				JSONArray array = new JSONArray(new JSONTokener(reader));
+				assertEquals("Project count", expectedLength, array.length());
+				result.commit();
+			} else {
+				assertNull("The reader should be null", reader);
+			}
+		}
+	}
+
+	private static int countTempFiles() {
+		String[] files = new File(System.getProperty("java.io.tmpdir")).list();
+		int count = 0;
+		if (files != null) {
+			for (String file : files) {
+				if (file.startsWith("microclimate-response")) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.HttpUtil;
+import com.ibm.microclimate.core.internal.HttpUtil.HttpResult;
+import com.ibm.microclimate.test.util.StubHttpServer;
+import com.ibm.microclimate.test.util.StubHttpServer.StubResponse;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that requests to the same host reuse the pooled connection.
+ */
+public class HttpUtilTest extends TestCase {
+
+	private static final String PROJECTS_PATH = "/api/v1/projects";
+
+	private static final StubHttpServer.Handler HANDLER = new StubHttpServer.Handler() {
+		@Override
+		public void handle(String method, String path, Map<String, String> requestHeaders, StubResponse response) {
+			response.body = "[]";
+		}
+	};
+
+	private StubHttpServer server;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (server != null) {
+			HttpUtil.evictConnections(server.getURI(PROJECTS_PATH));
+			server.stop();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testPoolReuse() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		server = new StubHttpServer(HANDLER, true);
+		URI uri = server.getURI(PROJECTS_PATH);
+		long hits = HttpUtil.getPoolHitCount();
+		long misses = HttpUtil.getPoolMissCount();
+
+		get(uri);
+		get(uri);
+		HttpUtil.post(uri);
+
+		assertEquals("Request count", 3, server.getRequestCount());
+		assertEquals("Connection count", 1, server.getConnectionCount());
+		assertEquals("Pool miss count", 1, HttpUtil.getPoolMissCount() - misses);
+		assertEquals("Pool hit count", 2, HttpUtil.getPoolHitCount() - hits);
+	}
+
+	@Test
+	public void testNoReuseWhenClosed() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		// The server closes each connection so nothing can be reused
+		server = new StubHttpServer(HANDLER);
+		URI uri = server.getURI(PROJECTS_PATH);
+		long hits = HttpUtil.getPoolHitCount();
+		long misses = HttpUtil.getPoolMissCount();
+
+		get(uri);
+		get(uri);
+
+		assertEquals("Connection count", 2, server.getConnectionCount());
+		assertEquals("Pool miss count", 2, HttpUtil.getPoolMissCount() - misses);
+		assertEquals("Pool hit count", 0, HttpUtil.getPoolHitCount() - hits);
+	}
+
+	private static void get(URI uri) throws Exception {
+		HttpResult result = HttpUtil.get(uri);
+		assertTrue("The response should be good", result.isGoodResponse);
+		assertEquals("[]", result.response);
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateReconnectSupervisor;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the backoff between reconnect attempts.
+ */
+public class MicroclimateReconnectSupervisorTest extends TestCase {
+
+	private static final int SAMPLES = 200;
+
+	@Test
+	public void testDelayBounds() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		for (int attempts = 0; attempts < 40; attempts++) {
+			// The delay doubles for each attempt until it reaches the cap
+			long base = Math.min(MicroclimateReconnectSupervisor.INITIAL_DELAY_MS << Math.min(attempts, 16),
+					MicroclimateReconnectSupervisor.MAX_DELAY_MS);
+			for (int i = 0; i < SAMPLES; i++) {
+				long delay = MicroclimateReconnectSupervisor.getDelay(attempts);
+				assertTrue("Delay " + delay + " for attempt " + attempts + " is below half of " + base, delay >= base / 2);
+				assertTrue("Delay " + delay + " for attempt " + attempts + " is above " + base, delay <= base);
+			}
+		}
+	}
+
+	@Test
+	public void testDelayCap() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		// A large attempt count must not overflow the shift
+		for (int attempts : new int[] { 6, 16, 17, 63, 64, Integer.MAX_VALUE }) {
+			long delay = MicroclimateReconnectSupervisor.getDelay(attempts);
+			assertTrue("Delay " + delay + " for attempt " + attempts + " is above the cap",
+					delay <= MicroclimateReconnectSupervisor.MAX_DELAY_MS);
+			assertTrue("Delay " + delay + " for attempt " + attempts + " is below half of the cap",
+					delay >= MicroclimateReconnectSupervisor.MAX_DELAY_MS / 2);
+		}
+	}
+
+	@Test
+	public void testJitter() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		// Hosts that fail together should not all retry after the same delay
+		Set<Long> delays = new HashSet<Long>();
+		for (int i = 0; i < SAMPLES; i++) {
+			delays.add(MicroclimateReconnectSupervisor.getDelay(3));
+		}
+		assertTrue("Only " + delays.size() + " different delays in " + SAMPLES + " samples", delays.size() > SAMPLES / 2);
+	}
+}
@@ -19,7 +19,14 @@ import org.junit.runners.Suite;
 	LibertyDebugTest.class,
 	SpringDebugTest.class,
 	SpringAutoBuildTest.class,
-	NodeValidationTest.class
+	NodeValidationTest.class,
+	HttpResponseCacheTest.class,
+	HttpUtilTest.class,
+	MicroclimateReconnectSupervisorTest.class,
+	ProjectEventDispatcherTest.class,
+	ProjectStatusCoalescerTest.class,
+	ServerFeaturesTest.class,
+	SocketEventParseTest.class
 })
 
 public class MicroclimateTests {
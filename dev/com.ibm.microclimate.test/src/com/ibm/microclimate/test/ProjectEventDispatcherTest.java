@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.connection.ProjectEventDispatcher;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a full project queue drops events without blocking and that empty queues are removed.
+ */
+public class ProjectEventDispatcherTest extends TestCase {
+
+	private final List<String> handled = Collections.synchronizedList(new ArrayList<String>());
+	private final List<String> overflows = Collections.synchronizedList(new ArrayList<String>());
+	private final CountDownLatch overflowDone = new CountDownLatch(1);
+
+	private final ProjectEventDispatcher dispatcher = new ProjectEventDispatcher("test", 2,
+			new ProjectEventDispatcher.OverflowListener() {
+				@Override
+				public void eventsDropped(String projectID) {
+					overflows.add(projectID);
+					overflowDone.countDown();
+				}
+			});
+
+	@Override
+	protected void tearDown() throws Exception {
+		dispatcher.close();
+		super.tearDown();
+	}
+
+	@Test
+	public void testFullQueueDrops() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		dispatcher.dispatch("p", "e0", new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				handled.add("e0");
+			}
+		});
+		assertTrue("The first event should start", started.await(5, TimeUnit.SECONDS));
+
+		// The queue holds two, the rest are dropped without waiting
+		long start = System.currentTimeMillis();
+		for (int i = 1; i <= 4; i++) {
+			dispatcher.dispatch("p", "e" + i, handler("e" + i));
+		}
+		assertTrue("Dispatch should not block", System.currentTimeMillis() - start < 1000);
+		// Another project is not held up
+		final CountDownLatch otherDone = new CountDownLatch(1);
+		dispatcher.dispatch("q", "other", new Runnable() {
+			@Override
+			public void run() {
+				otherDone.countDown();
+			}
+		});
+		assertTrue("The other project's event should run", otherDone.await(5, TimeUnit.SECONDS));
+
+		release.countDown();
+		assertTrue("The overflow listener should be called", overflowDone.await(5, TimeUnit.SECONDS));
+		assertEquals("Handled events", "[e0, e1, e2]", handled.toString());
+		assertEquals("Overflow calls", "[p]", overflows.toString());
+		assertEquals("Dropped count", 2, dispatcher.getDroppedCount());
+		assertEquals("Queue full count", 1, dispatcher.getQueueFullCount());
+		waitForNoQueues();
+	}
+
+	@Test
+	public void testQueueRemoved() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		for (int i = 0; i < 20; i++) {
+			dispatcher.dispatch("project" + i, "e", handler("project" + i));
+		}
+		waitForNoQueues();
+		assertEquals("Handled count", 20, handled.size());
+		// A removed queue is created again for the next event
+		dispatcher.dispatch("project0", "e", handler("again"));
+		waitForNoQueues();
+		assertEquals("Handled count", 21, handled.size());
+		assertTrue("No events should be dropped", overflows.isEmpty());
+	}
+
+	private Runnable handler(final String name) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				handled.add(name);
+			}
+		};
+	}
+
+	private void waitForNoQueues() throws InterruptedException {
+		for (int i = 0; i < 100 && dispatcher.getQueueCount() > 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals("Queue count", 0, dispatcher.getQueueCount());
+	}
+}
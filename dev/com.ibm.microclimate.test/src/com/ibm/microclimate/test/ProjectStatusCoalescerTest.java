@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.connection.ProjectStatusCoalescer;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks how project status events are merged and that they stay in order with the other
+ * events for the project.
+ */
+public class ProjectStatusCoalescerTest extends TestCase {
+
+	private static final String PROJECT_ID = "p";
+
+	// What the listener received, and the other events handled after each flush, in order
+	private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+	private final ProjectStatusCoalescer.Listener listener = new ProjectStatusCoalescer.Listener() {
+		@Override
+		public void statusChanged(String projectID, JSONObject event) {
+			received.add(projectID + ":" + event.optString("appStatus") + "/" + event.optString("buildStatus"));
+		}
+	};
+
+	@Test
+	public void testMerge() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		ProjectStatusCoalescer coalescer = new ProjectStatusCoalescer(60000, listener);
+		coalescer.add(PROJECT_ID, new JSONObject("{\"appStatus\":\"starting\",\"buildStatus\":\"inProgress\"}"));
+		coalescer.add(PROJECT_ID, new JSONObject("{\"appStatus\":\"started\"}"));
+		assertTrue("Nothing should be delivered during the window", received.isEmpty());
+		coalescer.flush(PROJECT_ID);
+		assertEquals("[p:started/inProgress]", received.toString());
+		assertEquals("Received count", 2, coalescer.getReceivedCount());
+		assertEquals("Delivered count", 1, coalescer.getDeliveredCount());
+	}
+
+	@Test
+	public void testBuildTransition() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		ProjectStatusCoalescer coalescer = new ProjectStatusCoalescer(60000, listener);
+		coalescer.add(PROJECT_ID, new JSONObject("{\"buildStatus\":\"inProgress\"}"));
+		// A completed build is never merged into the in progress status
+		coalescer.add(PROJECT_ID, new JSONObject("{\"buildStatus\":\"success\"}"));
+		coalescer.close();
+		assertEquals("[p:/inProgress, p:/success]", received.toString());
+	}
+
+	@Test
+	public void testTimerFlushOrder() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		// A short window so that the timer often ends it while flush is being called
+		ProjectStatusCoalescer coalescer = new ProjectStatusCoalescer(2, listener);
+		Random random = new Random(0);
+		int count = 300;
+		for (int i = 0; i < count; i++) {
+			coalescer.add(PROJECT_ID, new JSONObject().put("appStatus", "s" + i));
+			Thread.sleep(random.nextInt(5));
+			// What the socket does before queueing another event for the project
+			coalescer.flush(PROJECT_ID);
+			received.add("other" + i);
+		}
+		coalescer.close();
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			expected.add(PROJECT_ID + ":s" + i + "/");
+			expected.add("other" + i);
+		}
+		assertEquals("Each status should come before the next event", expected, received);
+	}
+}
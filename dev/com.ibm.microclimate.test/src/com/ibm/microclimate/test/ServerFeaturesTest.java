@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.connection.ServerFeatures;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the server features worked out from each supported version format.
+ */
+public class ServerFeaturesTest extends TestCase {
+
+	// version, supported, projectIDInPath, projectLogs
+	private static final Object[][] MATRIX = {
+		{ "latest", true, true, true },
+		{ "unknown", false, false, false },
+		{ "not a version", false, false, false },
+		{ "", false, false, false },
+		// Release versions
+		{ "1811", false, false, false },
+		{ "1812", true, false, false },
+		{ "1901", true, true, false },
+		{ "1904", true, true, false },
+		{ "1905", true, true, true },
+		{ "1912", true, true, true },
+		// Branch versions
+		{ "2018_M12_E", true, false, false },
+		{ "2019_M1_E", true, true, false },
+		{ "2019_M4_I", true, true, false },
+		{ "2019_M5_E", true, true, true },
+		{ "2019_M12_A", true, true, true },
+		{ "2020_M1_E", true, true, true },
+		// Not quite branch versions
+		{ "2019_M5_1", false, false, false },
+		{ "19_M5_E", false, false, false },
+	};
+
+	@Test
+	public void testVersionMatrix() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		for (Object[] row : MATRIX) {
+			String version = (String) row[0];
+			ServerFeatures features = ServerFeatures.parse(version);
+			assertEquals("supported for " + version, row[1], features.supported);
+			assertEquals("projectIDInPath for " + version, row[2], features.projectIDInPath);
+			assertEquals("projectLogs for " + version, row[3], features.projectLogs);
+			assertEquals("metricsStatus for " + version, row[3], features.metricsStatus);
+			assertEquals("projectTemplates for " + version, row[3], features.projectTemplates);
+			assertEquals("versionStr for " + version, version, features.versionStr);
+		}
+	}
+
+	@Test
+	public void testUnknown() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		assertSame(ServerFeatures.UNKNOWN, ServerFeatures.parse(null));
+		assertSame(ServerFeatures.UNKNOWN, ServerFeatures.parse(ServerFeatures.UNKNOWN_VERSION));
+		assertTrue(ServerFeatures.UNKNOWN.isUnknown());
+		assertFalse(ServerFeatures.parse("1905").isUnknown());
+	}
+
+	@Test
+	public void testIsAtLeast() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		assertTrue(ServerFeatures.parse("1905").isAtLeast(1905, "2019_M5_E"));
+		assertFalse(ServerFeatures.parse("1904").isAtLeast(1905, "2019_M5_E"));
+		assertTrue(ServerFeatures.parse("2019_M5_E").isAtLeast(1905, "2019_M5_E"));
+		assertFalse(ServerFeatures.parse("2019_M4_E").isAtLeast(1905, "2019_M5_E"));
+		// A later year is newer even with a lower iteration
+		assertTrue(ServerFeatures.parse("2020_M1_E").isAtLeast(1905, "2019_M5_E"));
+		assertTrue(ServerFeatures.parse("latest").isAtLeast(1905, "2019_M5_E"));
+		assertFalse(ServerFeatures.UNKNOWN.isAtLeast(1905, "2019_M5_E"));
+		// A bad required version fails the check
+		assertFalse(ServerFeatures.parse("1905").isAtLeast(1905, "bad"));
+	}
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.ibm.microclimate.core.internal.connection.MicroclimateSocket;
+import com.ibm.microclimate.test.util.TestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares using the JSONObject delivered by socket.io with serializing it and parsing it again,
+ * which is what each socket event listener used to do. The per event time and allocation of both
+ * paths are printed so that the numbers can be reproduced.
+ */
+public class SocketEventParseTest extends TestCase {
+
+	private static final int WARMUP = 2000;
+	private static final int ITERATIONS = 5000;
+	// A log-update event is usually several kilobytes of log text
+	private static final int LOG_SIZE = 8 * 1024;
+
+	private interface Path {
+		JSONObject parse(Object data) throws Exception;
+	}
+
+	private static final Path PARSED_PATH = new Path() {
+		@Override
+		public JSONObject parse(Object data) throws Exception {
+			return MicroclimateSocket.toJSONObject(data);
+		}
+	};
+
+	private static final Path REPARSE_PATH = new Path() {
+		@Override
+		public JSONObject parse(Object data) throws Exception {
+			return new JSONObject(data.toString());
+		}
+	};
+
+	@Test
+	public void testParsedObjectUsed() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		JSONObject event = createLogEvent();
+		assertSame("The delivered object should be used as is", event, MicroclimateSocket.toJSONObject(event));
+		// Any other type is still parsed
+		JSONObject parsed = MicroclimateSocket.toJSONObject(event.toString());
+		assertEquals(event.getString("logs"), parsed.getString("logs"));
+	}
+
+	@Test
+	public void testParsedPathCost() throws Exception {
+		TestUtil.print("Starting test: " + getName());
+		JSONObject event = createLogEvent();
+		measure(PARSED_PATH, event, WARMUP);
+		measure(REPARSE_PATH, event, WARMUP);
+
+		long[] parsed = measure(PARSED_PATH, event, ITERATIONS);
+		long[] reparsed = measure(REPARSE_PATH, event, ITERATIONS);
+		TestUtil.print(String.format("Parsed object path: %d ns, %d bytes per event", parsed[0], parsed[1]));
+		TestUtil.print(String.format("Re-parse path: %d ns, %d bytes per event", reparsed[0], reparsed[1]));
+
+		// Timing is too noisy to check here, but the allocations are not
+		if (parsed[1] < 0) {
+			TestUtil.print("Thread allocation counting is not supported, skipping the allocation check");
+			return;
+		}
+		assertTrue("The re-parse path should allocate at least the size of the payload",
+				reparsed[1] >= LOG_SIZE);
+		assertTrue("The parsed object path allocated " + parsed[1] + " bytes per event",
+				parsed[1] * 100 < reparsed[1]);
+	}
+
+	/**
+	 * @return The average time in nanoseconds and bytes allocated by this thread per call, or -1 for
+	 * 		the bytes if the JVM does not count them.
+	 */
+	private static long[] measure(Path path, JSONObject event, int iterations) throws Exception {
+		int check = 0;
+		long startBytes = getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			check += path.parse(event).length();
+		}
+		long time = System.nanoTime() - start;
+		long endBytes = getAllocatedBytes();
+		// Use the results so the calls cannot be optimized away
+		assertEquals(iterations * event.length(), check);
+		long bytes = startBytes < 0 || endBytes < 0 ? -1 : (endBytes - startBytes) / iterations;
+		return new long[] { time / iterations, bytes };
+	}
+
+	/**
+	 * Read through the platform MBean server so that no JDK specific classes are needed.
+	 */
+	private static long getAllocatedBytes() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
+			Object result = server.invoke(name, "getThreadAllocatedBytes",
+					new Object[] { Thread.currentThread().getId() }, new String[] { long.class.getName() });
+			return result instanceof Long ? (Long) result : -1;
+		} catch (JMException | UnsupportedOperationException e) {
+			return -1;
+		}
+	}
+
+	private static JSONObject createLogEvent() throws Exception {
+		StringBuilder logs = new StringBuilder(LOG_SIZE);
+		for (int line = 0; logs.length() < LOG_SIZE; line++) {
+			logs.append("[INFO] Line ").append(line).append(" of the application log\n");
+		}
+		JSONObject event = new JSONObject();
+		event.put("projectID", "p");
+		event.put("type", "app");
+		event.put("logName", "messages.log");
+		event.put("logs", logs.toString());
+		event.put("reset", false);
+		return event;
+	}
+}
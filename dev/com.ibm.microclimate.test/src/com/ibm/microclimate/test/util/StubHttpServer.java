@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.test.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal local HTTP server that stands in for Microclimate in tests that
+ * do not need a real instance. By default each connection handles one request and is closed.
+ * With keep-alive each connection handles requests until the client closes it.
+ */
+public class StubHttpServer {
+
+	public interface Handler {
+		/**
+		 * Fill in the response for the request. The request header names are lower case.
+		 */
+		void handle(String method, String path, Map<String, String> requestHeaders, StubResponse response);
+	}
+
+	public static class StubResponse {
+		public int code = 200;
+		public final Map<String, String> headers = new LinkedHashMap<String, String>();
+		public String body = "";
+	}
+
+	private final ServerSocket serverSocket;
+	private final Handler handler;
+	private final boolean keepAlive;
+	private final AtomicInteger requestCount = new AtomicInteger();
+	private final AtomicInteger connectionCount = new AtomicInteger();
+	private final Set<Socket> openSockets = Collections.synchronizedSet(new HashSet<Socket>());
+	private final Thread acceptThread;
+	private volatile boolean stopped = false;
+
+	public StubHttpServer(Handler handler) throws IOException {
+		this(handler, false);
+	}
+
+	public StubHttpServer(Handler handler, boolean keepAlive) throws IOException {
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		acceptThread = new Thread("Stub HTTP server") {
+			@Override
+			public void run() {
+				while (!stopped) {
+					try {
+						final Socket socket = serverSocket.accept();
+						connectionCount.incrementAndGet();
+						if (!keepAlive) {
+							handleConnection(socket);
+							continue;
+						}
+						// Kept open connections are handled on their own thread so others can be accepted
+						Thread connectionThread = new Thread("Stub HTTP server connection") {
+							@Override
+							public void run() {
+								handleConnection(socket);
+							}
+						};
+						connectionThread.setDaemon(true);
+						connectionThread.start();
+					} catch (IOException e) {
+						if (!stopped) {
+							TestUtil.print("Stub HTTP server failed to accept a connection", e);
+						}
+					}
+				}
+			}
+		};
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	public URI getURI(String path) {
+		return URI.create("http://localhost:" + serverSocket.getLocalPort() + path);
+	}
+
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * @return The number of connections accepted.
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	public void stop() {
+		stopped = true;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// Ignore
+		}
+		synchronized(openSockets) {
+			for (Socket socket : openSockets) {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+	private void handleConnection(Socket socket) {
+		openSockets.add(socket);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+			while (handleRequest(socket, reader) && keepAlive && !stopped) {
+				// Wait for the next request on this connection
+			}
+		} catch (IOException e) {
+			if (!stopped) {
+				TestUtil.print("Stub HTTP server failed to handle a request", e);
+			}
+		} finally {
+			openSockets.remove(socket);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * @return false if the client closed the connection instead of sending a request.
+	 */
+	private boolean handleRequest(Socket socket, BufferedReader reader) throws IOException {
+		String requestLine = reader.readLine();
+		if (requestLine == null) {
+			return false;
+		}
+		String[] parts = requestLine.split(" ");
+		Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+		String line;
+		while ((line = reader.readLine()) != null && !line.isEmpty()) {
+			int index = line.indexOf(':');
+			if (index > 0) {
+				requestHeaders.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+			}
+		}
+		// Skip any request body so the next request on a kept open connection starts cleanly
+		String contentLength = requestHeaders.get("content-length");
+		if (contentLength != null) {
+			long remaining = Long.parseLong(contentLength);
+			while (remaining > 0) {
+				long skipped = reader.skip(remaining);
+				if (skipped <= 0) {
+					break;
+				}
+				remaining -= skipped;
+			}
+		}
+		requestCount.incrementAndGet();
+
+		StubResponse response = new StubResponse();
+		handler.handle(parts[0], parts.length > 1 ? parts[1] : "/", requestHeaders, response);
+
+		byte[] body = response.code == 304 ? new byte[0] : response.body.getBytes(StandardCharsets.UTF_8);
+		StringBuilder builder = new StringBuilder();
+		builder.append("HTTP/1.1 ").append(response.code).append(" Stub\r\n");
+		for (Map.Entry<String, String> header : response.headers.entrySet()) {
+			builder.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+		}
+		builder.append("Content-Type: application/json; charset=utf-8\r\n");
+		builder.append("Content-Length: ").append(body.length).append("\r\n");
+		builder.append(keepAlive ? "Connection: keep-alive\r\n\r\n" : "Connection: close\r\n\r\n");
+
+		OutputStream out = socket.getOutputStream();
+		out.write(builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+		out.write(body);
+		out.flush();
+		return true;
+	}
+}
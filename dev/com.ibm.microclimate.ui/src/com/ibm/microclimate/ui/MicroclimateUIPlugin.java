@@ -58,6 +58,8 @@ public class MicroclimateUIPlugin extends AbstractUIPlugin {
 
 	// The shared instance
 	private static MicroclimateUIPlugin plugin;
+	
+	private UpdateHandler updateHandler;
 
 	/**
 	 * The constructor
@@ -73,7 +75,9 @@ public class MicroclimateUIPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
-		MicroclimateCorePlugin.setUpdateHandler(new UpdateHandler());
+		updateHandler = new UpdateHandler();
+		MicroclimateCorePlugin.setUpdateHandler(updateHandler);
+		MicroclimateCorePlugin.addModelChangeListener(updateHandler);
 		MicroclimateCorePlugin.addDebugLauncher(ProjectType.LANGUAGE_NODEJS, new NodeJSDebugLauncher());
 	}
 
@@ -83,6 +87,7 @@ public class MicroclimateUIPlugin extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		MicroclimateCorePlugin.removeModelChangeListener(updateHandler);
 		MicroclimateCorePlugin.setUpdateHandler(null);
 		plugin = null;
 		super.stop(context);
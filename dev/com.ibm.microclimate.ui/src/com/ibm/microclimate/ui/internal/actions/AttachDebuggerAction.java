@@ -15,6 +15,7 @@ import org.eclipse.jface.viewers.ISelectionProvider;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.ui.actions.SelectionProviderAction;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.constants.AppState;
@@ -47,8 +48,9 @@ public class AttachDebuggerAction extends SelectionProviderAction {
             	} else {
             		this.setText(Messages.AttachDebuggerLabel);
             	}
-            	if (app.isAvailable() && StartMode.DEBUG_MODES.contains(app.getStartMode()) && app.getDebugPort() != -1 &&
-            			(app.getAppState() == AppState.STARTED || app.getAppState() == AppState.STARTING)) {
+            	ApplicationState state = app.getState();
+            	if (state.isAvailable() && StartMode.DEBUG_MODES.contains(state.startMode) && state.debugPort != -1 &&
+            			(state.appState == AppState.STARTED || state.appState == AppState.STARTING)) {
             		setEnabled(app.canAttachDebugger());
             		return;
             	}
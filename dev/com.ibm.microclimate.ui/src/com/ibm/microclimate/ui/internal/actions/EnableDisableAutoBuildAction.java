@@ -17,6 +17,7 @@ import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.ui.IObjectActionDelegate;
 import org.eclipse.ui.IWorkbenchPart;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
@@ -42,8 +43,9 @@ public class EnableDisableAutoBuildAction implements IObjectActionDelegate {
             Object obj = sel.getFirstElement();
             if (obj instanceof MCEclipseApplication) {
             	app = (MCEclipseApplication)obj;
-            	if (app.isAvailable()) {
-	            	if (app.isAutoBuild()) {
+            	ApplicationState state = app.getState();
+            	if (state.isAvailable()) {
+	            	if (state.autoBuild) {
 	                	action.setText(Messages.DisableAutoBuildLabel);
 	                } else {
 	                	action.setText(Messages.EnableAutoBuildLabel);
@@ -59,7 +59,7 @@ public class LogFileActionProvider extends CommonActionProvider {
         	Object obj = sel.getFirstElement();
         	if (obj instanceof MCEclipseApplication) {
         		final MCEclipseApplication app = (MCEclipseApplication)obj;
-        		if (app.mcConnection.checkVersion(1905, "2019_M5_E")) {
+        		if (app.mcConnection.getFeatures().projectLogs) {
         			if (app.isAvailable() && app.getLogInfos() != null && !app.getLogInfos().isEmpty()) {
         				MenuManager menuMgr = new MenuManager(Messages.ShowLogFilesMenu, "ShowLogFiles");
         				showAllLogsAction.setApp(app);
@@ -57,7 +57,7 @@ public class MicroclimateConnectionActionProvider extends CommonActionProvider {
 			Object obj = sel.getFirstElement();
 			if (obj instanceof MicroclimateConnection) {
 				MicroclimateConnection connection = (MicroclimateConnection)obj;
-				if (connection.checkVersion(1905, "2019_M5_E")) {
+				if (connection.getFeatures().projectTemplates) {
 					menu.appendToGroup(ICommonMenuConstants.GROUP_NEW, openUIHomePageAction);
 					menu.appendToGroup(ICommonMenuConstants.GROUP_NEW, newProjectAction);
 					menu.appendToGroup(ICommonMenuConstants.GROUP_NEW, openImportProjectPageAction);
@@ -24,6 +24,7 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.browser.IWebBrowser;
 import org.eclipse.ui.browser.IWorkbenchBrowserSupport;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
@@ -49,7 +50,8 @@ public class OpenAppAction implements IObjectActionDelegate {
             Object obj = sel.getFirstElement();
             if (obj instanceof MicroclimateApplication) {
             	app = (MicroclimateApplication)obj;
-            	action.setEnabled(app.isAvailable() && app.getAppState() == AppState.STARTED);
+            	ApplicationState state = app.getState();
+            	action.setEnabled(state.isAvailable() && state.appState == AppState.STARTED);
             	return;
             }
         }
@@ -25,6 +25,7 @@ import org.eclipse.ui.actions.SelectionProviderAction;
 import org.eclipse.ui.browser.IWebBrowser;
 import org.eclipse.ui.browser.IWorkbenchBrowserSupport;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
@@ -51,7 +52,8 @@ public class OpenAppMonitorAction extends SelectionProviderAction {
             Object obj = sel.getFirstElement();
             if (obj instanceof MicroclimateApplication) {
             	app = (MicroclimateApplication)obj;
-            	setEnabled(app.isAvailable() && app.getAppState() == AppState.STARTED);
+            	ApplicationState state = app.getState();
+            	setEnabled(state.isAvailable() && state.appState == AppState.STARTED);
             	return;
             }
         }
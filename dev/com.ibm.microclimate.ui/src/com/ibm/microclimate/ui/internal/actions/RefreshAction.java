@@ -25,6 +25,7 @@ import org.eclipse.ui.IWorkbenchPart;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
+import com.ibm.microclimate.core.internal.connection.MicroclimateReconnectSupervisor;
 import com.ibm.microclimate.ui.internal.messages.Messages;
 import com.ibm.microclimate.ui.internal.views.ViewHelper;
 
@@ -59,6 +60,8 @@ public class RefreshAction implements IObjectActionDelegate {
     public void run(IAction action) {
         if (microclimateObject instanceof MicroclimateConnection) {
         	final MicroclimateConnection connection = (MicroclimateConnection) microclimateObject;
+        	// Also try any connections that could not connect at startup now instead of waiting
+        	MicroclimateReconnectSupervisor.retryNow();
         	Job job = new Job(NLS.bind(Messages.RefreshConnectionJobLabel, connection.baseUrl.toString())) {
     			@Override
     			protected IStatus run(IProgressMonitor monitor) {
@@ -32,6 +32,7 @@ import org.eclipse.ui.IViewActionDelegate;
 import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IWorkbenchPart;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
@@ -60,8 +61,9 @@ public class RestartDebugModeAction implements IObjectActionDelegate, IViewActio
             Object obj = sel.getFirstElement();
             if (obj instanceof MCEclipseApplication) {
             	app = (MCEclipseApplication)obj;
-            	if (app.isAvailable() && app.supportsDebug()) {
-		            action.setEnabled(app.getAppState() == AppState.STARTED || app.getAppState() == AppState.STARTING);
+            	ApplicationState state = app.getState();
+            	if (state.isAvailable() && app.supportsDebug()) {
+		            action.setEnabled(state.appState == AppState.STARTED || state.appState == AppState.STARTING);
 	            	return;
             	}
             }
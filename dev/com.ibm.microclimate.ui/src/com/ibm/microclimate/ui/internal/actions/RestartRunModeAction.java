@@ -21,6 +21,7 @@ import org.eclipse.ui.IViewActionDelegate;
 import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IWorkbenchPart;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MCEclipseApplication;
 import com.ibm.microclimate.core.internal.MCLogger;
 import com.ibm.microclimate.core.internal.MCUtil;
@@ -47,8 +48,9 @@ public class RestartRunModeAction implements IObjectActionDelegate, IViewActionD
             Object obj = sel.getFirstElement();
             if (obj instanceof MCEclipseApplication) {
             	app = (MCEclipseApplication)obj;
-            	if (app.isAvailable() && app.getProjectCapabilities().canRestart()) {
-		            action.setEnabled(app.getAppState() == AppState.STARTED || app.getAppState() == AppState.STARTING);
+            	ApplicationState state = app.getState();
+            	if (state.isAvailable() && app.getProjectCapabilities().canRestart()) {
+		            action.setEnabled(state.appState == AppState.STARTED || state.appState == AppState.STARTING);
 	            	return;
             	}
             }
@@ -50,7 +50,9 @@ public class Messages extends NLS {
 	
 	public static String MicroclimateConnectionLabel;
 	public static String MicroclimateDisconnected;
+	public static String MicroclimateConnecting;
 	public static String MicroclimateProjectDisabled;
+	public static String MicroclimateProjectStale;
 	public static String MicroclimateConnectionNoProjects;
 	
 	public static String RestartInDebugMode;
@@ -174,6 +174,11 @@ public class MicroclimateConnectionPrefsPage extends PreferencePage implements I
 		for (String brokenConnectionUrl : MicroclimateConnectionManager.brokenConnections()) {
 			addTableRow(brokenConnectionUrl, true);
 		}
+
+		// Saved connections that are still being restored can be removed too
+		for (String pendingConnectionUrl : MicroclimateConnectionManager.pendingConnections()) {
+			addTableRow(pendingConnectionUrl, false);
+		}
 	}
 
 	private void addTableRow(String url, boolean isBroken) {
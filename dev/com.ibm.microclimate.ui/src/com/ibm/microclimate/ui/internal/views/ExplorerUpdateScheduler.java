@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.views;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IViewPart;
+import org.eclipse.ui.navigator.CommonNavigator;
+import org.eclipse.ui.navigator.CommonViewer;
+
+/**
+ * Collects the elements of the Microclimate view that need refreshing and applies them together,
+ * at most once per flush interval, so that a burst of model events costs one pass over the view.
+ *
+ * A refresh is for structural changes and also updates the labels of the element and its children,
+ * so pending refreshes and label updates for descendants of a refreshed element are dropped.
+ * Everything else only gets a label update. Can be called from any thread.
+ */
+public class ExplorerUpdateScheduler {
+
+	public static final int FLUSH_INTERVAL_MS = 50;
+
+	private static final ExplorerUpdateScheduler instance = new ExplorerUpdateScheduler();
+
+	// Only used to find the parents of elements
+	private final MicroclimateNavigatorContentProvider contentProvider = new MicroclimateNavigatorContentProvider();
+
+	// Guarded by this
+	private boolean refreshAll = false;
+	private Set<Object> refreshElements = new LinkedHashSet<Object>();
+	private Set<Object> updateElements = new LinkedHashSet<Object>();
+	private boolean scheduled = false;
+	// Only used on the UI thread
+	private long lastFlush = 0;
+
+	private final Runnable scheduleRunnable = new Runnable() {
+		@Override
+		public void run() {
+			Display display = Display.getCurrent();
+			long wait = lastFlush + FLUSH_INTERVAL_MS - System.currentTimeMillis();
+			if (wait > 0 && wait <= FLUSH_INTERVAL_MS) {
+				display.timerExec((int) wait, flushRunnable);
+			} else {
+				flush();
+			}
+		}
+	};
+
+	private final Runnable flushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flush();
+		}
+	};
+
+	private ExplorerUpdateScheduler() {}
+
+	public static ExplorerUpdateScheduler getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Refresh the element and its children. If the element is null, refresh the whole view.
+	 */
+	public void refresh(Object element) {
+		synchronized(this) {
+			if (element == null) {
+				refreshAll = true;
+			} else {
+				refreshElements.add(element);
+			}
+		}
+		schedule();
+	}
+
+	/**
+	 * Update the label of the element.
+	 */
+	public void update(Object element) {
+		synchronized(this) {
+			updateElements.add(element);
+		}
+		schedule();
+	}
+
+	private void schedule() {
+		synchronized(this) {
+			if (scheduled) {
+				return;
+			}
+			scheduled = true;
+		}
+		Display display = Display.getDefault();
+		if (display.isDisposed()) {
+			return;
+		}
+		display.asyncExec(scheduleRunnable);
+	}
+
+	/**
+	 * Apply everything collected since the last flush. Runs on the UI thread.
+	 */
+	private void flush() {
+		boolean all;
+		Set<Object> refreshes;
+		Set<Object> updates;
+		synchronized(this) {
+			all = refreshAll;
+			refreshes = refreshElements;
+			updates = updateElements;
+			refreshAll = false;
+			refreshElements = new LinkedHashSet<Object>();
+			updateElements = new LinkedHashSet<Object>();
+			scheduled = false;
+		}
+		lastFlush = System.currentTimeMillis();
+
+		IViewPart part = ViewHelper.getViewPart(MicroclimateExplorerView.VIEW_ID);
+		if (!(part instanceof CommonNavigator)) {
+			return;
+		}
+		CommonViewer viewer = ((CommonNavigator) part).getCommonViewer();
+		if (viewer.getControl() == null || viewer.getControl().isDisposed()) {
+			return;
+		}
+		if (all) {
+			viewer.refresh();
+			return;
+		}
+
+		for (Object element : refreshes) {
+			if (!hasAncestorIn(element, refreshes)) {
+				viewer.refresh(element);
+			}
+		}
+		List<Object> labels = new ArrayList<Object>(updates.size());
+		for (Object element : updates) {
+			if (!refreshes.contains(element) && !hasAncestorIn(element, refreshes)) {
+				labels.add(element);
+			}
+		}
+		if (!labels.isEmpty()) {
+			viewer.update(labels.toArray(), null);
+		}
+	}
+
+	private boolean hasAncestorIn(Object element, Set<Object> elements) {
+		if (elements.isEmpty()) {
+			return false;
+		}
+		Object parent = contentProvider.getParent(element);
+		while (parent != null) {
+			if (elements.contains(parent)) {
+				return true;
+			}
+			parent = contentProvider.getParent(parent);
+		}
+		return false;
+	}
+}
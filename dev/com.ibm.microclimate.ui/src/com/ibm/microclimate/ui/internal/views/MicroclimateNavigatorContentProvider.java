@@ -11,12 +11,15 @@
 
 package com.ibm.microclimate.ui.internal.views;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot;
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot.AppSnapshot;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnectionManager;
 
@@ -31,14 +34,23 @@ public class MicroclimateNavigatorContentProvider implements ITreeContentProvide
 			MicroclimateConnection connection = (MicroclimateConnection)obj;
 			List<MicroclimateApplication> apps = connection.getApps();
 			return apps.toArray(new MicroclimateApplication[apps.size()]);
+		} else if (obj instanceof PendingConnection) {
+			// The last known apps until the connection is restored
+			List<AppSnapshot> apps = ConnectionSnapshot.getApps(((PendingConnection)obj).url);
+			return apps.toArray(new AppSnapshot[apps.size()]);
 		}
 		return null;
 	}
 
 	@Override
 	public Object[] getElements(Object obj) {
-		List<MicroclimateConnection> connections = MicroclimateConnectionManager.activeConnections();
-		return connections.toArray(new MicroclimateConnection[connections.size()]);
+		// Only reads what the connection manager already has so that the UI thread never waits for
+		// the network. Saved connections that are still being restored are shown as placeholders.
+		List<Object> elements = new ArrayList<Object>(MicroclimateConnectionManager.activeConnections());
+		for (String url : MicroclimateConnectionManager.pendingConnections()) {
+			elements.add(new PendingConnection(url));
+		}
+		return elements.toArray();
 	}
 
 	@Override
@@ -48,6 +60,10 @@ public class MicroclimateNavigatorContentProvider implements ITreeContentProvide
 		} else if (obj instanceof MicroclimateApplication) {
 			MicroclimateApplication app = (MicroclimateApplication)obj;
 			return app.mcConnection;
+		} else if (obj instanceof PendingConnection) {
+			return ResourcesPlugin.getWorkspace().getRoot();
+		} else if (obj instanceof AppSnapshot) {
+			return new PendingConnection(((AppSnapshot)obj).connectionUrl);
 		}
 		return null;
 	}
@@ -57,6 +73,8 @@ public class MicroclimateNavigatorContentProvider implements ITreeContentProvide
 		if (obj instanceof MicroclimateConnection) {
 			MicroclimateConnection connection = (MicroclimateConnection)obj;
 			return !connection.getApps().isEmpty();
+		} else if (obj instanceof PendingConnection) {
+			return !ConnectionSnapshot.getApps(((PendingConnection)obj).url).isEmpty();
 		}
 		return false;
 	}
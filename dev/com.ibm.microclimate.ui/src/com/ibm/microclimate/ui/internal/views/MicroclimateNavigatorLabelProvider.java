@@ -11,6 +11,11 @@
 
 package com.ibm.microclimate.ui.internal.views;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.eclipse.jface.preference.JFacePreferences;
 import org.eclipse.jface.resource.FontDescriptor;
 import org.eclipse.jface.viewers.DelegatingStyledCellLabelProvider.IStyledLabelProvider;
@@ -24,7 +29,9 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.TextStyle;
 import org.eclipse.swt.widgets.Display;
 
+import com.ibm.microclimate.core.internal.ApplicationState;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
+import com.ibm.microclimate.core.internal.connection.ConnectionSnapshot.AppSnapshot;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
 import com.ibm.microclimate.core.internal.constants.AppState;
 import com.ibm.microclimate.core.internal.constants.BuildStatus;
@@ -34,6 +41,11 @@ import com.ibm.microclimate.ui.internal.messages.Messages;
 
 /**
  * Label provider for the Microclimate view.
+ *
+ * The labels of connections and applications are cached, since the viewer asks for them on every paint.
+ * An application label is kept until the version of the application state changes. Connections have no
+ * state version so their labels are kept until {@link #invalidate(MicroclimateConnection)} is called
+ * for a connection change event.
  */
 public class MicroclimateNavigatorLabelProvider extends LabelProvider implements IStyledLabelProvider {
 
@@ -42,8 +54,84 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 	public static final Styler ERROR_STYLER = StyledString.createColorRegistryStyler(
 			JFacePreferences.ERROR_COLOR, null);
 	
+	// Shared by all instances. Weak keys so removed connections and applications are dropped.
+	private static final Map<Object, CachedLabel> labelCache =
+			Collections.synchronizedMap(new WeakHashMap<Object, CachedLabel>());
+	
+	// Bumped on every connection change. Read before building a connection label so that a label
+	// built from the old connection status is never kept after the change.
+	private static final AtomicLong connectionGeneration = new AtomicLong();
+	
+	private static class CachedLabel {
+		final long version;
+		String text;
+		StyledString styledText;
+		
+		CachedLabel(long version) {
+			this.version = version;
+		}
+	}
+	
+	/**
+	 * Drop the cached label of the connection. Call this before updating the connection in the view.
+	 */
+	public static void invalidate(MicroclimateConnection connection) {
+		connectionGeneration.incrementAndGet();
+		labelCache.remove(connection);
+	}
+	
+	/**
+	 * Drop all cached labels.
+	 */
+	public static void invalidateAll() {
+		connectionGeneration.incrementAndGet();
+		labelCache.clear();
+	}
+	
+	private static CachedLabel getCachedLabel(Object element) {
+		long version = element instanceof MicroclimateApplication ?
+				((MicroclimateApplication)element).getState().version : connectionGeneration.get();
+		CachedLabel label = labelCache.get(element);
+		if (label == null || label.version != version) {
+			label = new CachedLabel(version);
+			labelCache.put(element, label);
+		}
+		return label;
+	}
+	
+	private static boolean isCached(Object element) {
+		return element instanceof MicroclimateConnection || element instanceof MicroclimateApplication;
+	}
+	
 	@Override
 	public String getText(Object element) {
+		if (!isCached(element)) {
+			return buildText(element);
+		}
+		CachedLabel label = getCachedLabel(element);
+		String text = label.text;
+		if (text == null) {
+			text = buildText(element);
+			label.text = text;
+		}
+		return text;
+	}
+	
+	@Override
+	public StyledString getStyledText(Object element) {
+		if (!isCached(element)) {
+			return buildStyledText(element);
+		}
+		CachedLabel label = getCachedLabel(element);
+		StyledString styledText = label.styledText;
+		if (styledText == null) {
+			styledText = buildStyledText(element);
+			label.styledText = styledText;
+		}
+		return styledText;
+	}
+	
+	private String buildText(Object element) {
 		if (element instanceof MicroclimateConnection) {
 			MicroclimateConnection connection = (MicroclimateConnection)element;
 			String text = Messages.MicroclimateConnectionLabel + " " + connection.baseUrl;
@@ -53,21 +141,23 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 					errorMsg = Messages.MicroclimateDisconnected;
 				}
 				text = text + " (" + errorMsg + ")";
-			} else if (connection.getApps().size() == 0) {
+			} else if (connection.getApps().isEmpty()) {
 				text = text + " (" + Messages.MicroclimateConnectionNoProjects + ")";
 			}
 			return text;
 		} else if (element instanceof MicroclimateApplication) {
 			MicroclimateApplication app = (MicroclimateApplication)element;
+			// Read the state once so the label is consistent
+			ApplicationState state = app.getState();
 			StringBuilder builder = new StringBuilder(app.name);
 			
-			if (app.isEnabled()) {
-				AppState appState = app.getAppState();
-				String displayString = appState.getDisplayString(app.getStartMode());
+			if (state.enabled) {
+				AppState appState = state.appState;
+				String displayString = appState.getDisplayString(state.startMode);
 				builder.append(" [" + displayString + "]");
 				
-				BuildStatus buildStatus = app.getBuildStatus();
-				String buildDetails = app.getBuildDetails();
+				BuildStatus buildStatus = state.buildStatus;
+				String buildDetails = state.buildDetails;
 				if (buildDetails != null && !buildDetails.isEmpty()) {
 					builder.append(" [" + buildStatus.getDisplayString() + ": " + buildDetails + "]");
 				} else {
@@ -76,13 +166,29 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 			} else {
 				builder.append(" [" + Messages.MicroclimateProjectDisabled + "]");
 			}
+			if (state.stale) {
+				builder.append(" (" + Messages.MicroclimateProjectStale + ")");
+			}
+			return builder.toString();
+		} else if (element instanceof PendingConnection) {
+			return Messages.MicroclimateConnectionLabel + " " + ((PendingConnection)element).url
+					+ " (" + Messages.MicroclimateConnecting + ")";
+		} else if (element instanceof AppSnapshot) {
+			AppSnapshot app = (AppSnapshot)element;
+			StringBuilder builder = new StringBuilder(app.name);
+			if (app.enabled) {
+				builder.append(" [" + app.appState.getDisplayString(app.startMode) + "]");
+				builder.append(" [" + app.buildStatus.getDisplayString() + "]");
+			} else {
+				builder.append(" [" + Messages.MicroclimateProjectDisabled + "]");
+			}
+			builder.append(" (" + Messages.MicroclimateProjectStale + ")");
 			return builder.toString();
 		}
 		return super.getText(element);
 	}
 
-	@Override
-	public StyledString getStyledText(Object element) {
+	private StyledString buildStyledText(Object element) {
 		StyledString styledString;
 		if (element instanceof MicroclimateConnection) {
 			MicroclimateConnection connection = (MicroclimateConnection)element;
@@ -94,20 +200,21 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 					errorMsg = Messages.MicroclimateDisconnected;
 				}
 				styledString.append(" (" + errorMsg + ")", ERROR_STYLER);
-			} else if (connection.getApps().size() == 0) {
+			} else if (connection.getApps().isEmpty()) {
 				styledString.append(" (" + Messages.MicroclimateConnectionNoProjects + ")", StyledString.DECORATIONS_STYLER);
 			}
 		} else if (element instanceof MicroclimateApplication) {
 			MicroclimateApplication app = (MicroclimateApplication)element;
+			ApplicationState state = app.getState();
 			styledString = new StyledString(app.name);
 			
-			if (app.isEnabled()) {
-				AppState appState = app.getAppState();
-				String displayString = appState.getDisplayString(app.getStartMode());
+			if (state.enabled) {
+				AppState appState = state.appState;
+				String displayString = appState.getDisplayString(state.startMode);
 				styledString.append(" [" + displayString + "]", StyledString.DECORATIONS_STYLER);
 				
-				BuildStatus buildStatus = app.getBuildStatus();
-				String buildDetails = app.getBuildDetails();
+				BuildStatus buildStatus = state.buildStatus;
+				String buildDetails = state.buildDetails;
 				if (buildDetails != null) {
 					styledString.append(" [" + buildStatus.getDisplayString() + ": ", StyledString.DECORATIONS_STYLER);
 					styledString.append(buildDetails, StyledString.QUALIFIER_STYLER);
@@ -118,6 +225,24 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 			} else {
 				styledString.append(" [" + Messages.MicroclimateProjectDisabled + "]", StyledString.DECORATIONS_STYLER);
 			}
+			if (state.stale) {
+				styledString.append(" (" + Messages.MicroclimateProjectStale + ")", StyledString.QUALIFIER_STYLER);
+			}
+		} else if (element instanceof PendingConnection) {
+			styledString = new StyledString(Messages.MicroclimateConnectionLabel + " " );
+			styledString.append(((PendingConnection)element).url, StyledString.QUALIFIER_STYLER);
+			styledString.append(" (" + Messages.MicroclimateConnecting + ")", StyledString.DECORATIONS_STYLER);
+		} else if (element instanceof AppSnapshot) {
+			// Last known state from the snapshot, shown without the build details
+			AppSnapshot app = (AppSnapshot)element;
+			styledString = new StyledString(app.name);
+			if (app.enabled) {
+				styledString.append(" [" + app.appState.getDisplayString(app.startMode) + "]", StyledString.DECORATIONS_STYLER);
+				styledString.append(" [" + app.buildStatus.getDisplayString() + "]", StyledString.DECORATIONS_STYLER);
+			} else {
+				styledString.append(" [" + Messages.MicroclimateProjectDisabled + "]", StyledString.DECORATIONS_STYLER);
+			}
+			styledString.append(" (" + Messages.MicroclimateProjectStale + ")", StyledString.QUALIFIER_STYLER);
 		} else {
 			styledString = new StyledString(getText(element));
 		}
@@ -126,10 +251,11 @@ public class MicroclimateNavigatorLabelProvider extends LabelProvider implements
 
 	@Override
 	public Image getImage(Object element) {
-		if (element instanceof MicroclimateConnection) {
+		if (element instanceof MicroclimateConnection || element instanceof PendingConnection) {
 			return MicroclimateUIPlugin.getImage(MicroclimateUIPlugin.MICROCLIMATE_ICON);
-		} else if (element instanceof MicroclimateApplication) {
-			ProjectType type = ((MicroclimateApplication)element).projectType;
+		} else if (element instanceof MicroclimateApplication || element instanceof AppSnapshot) {
+			ProjectType type = element instanceof AppSnapshot ? ((AppSnapshot)element).projectType
+					: ((MicroclimateApplication)element).projectType;
 			if (type.isLanguage(ProjectType.LANGUAGE_JAVA)) {
 				return MicroclimateUIPlugin.getImage(MicroclimateUIPlugin.JAVA_ICON);
 			}
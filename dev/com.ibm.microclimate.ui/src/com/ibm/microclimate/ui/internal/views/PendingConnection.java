@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.microclimate.ui.internal.views;
+
+/**
+ * Placeholder shown in the Microclimate view for a saved connection that is still
+ * being restored. It is replaced by the connection once it is ready.
+ */
+public class PendingConnection {
+
+	public final String url;
+
+	public PendingConnection(String url) {
+		this.url = url;
+	}
+
+	@Override
+	public int hashCode() {
+		return url.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PendingConnection)) {
+			return false;
+		}
+		return url.equals(((PendingConnection) obj).url);
+	}
+
+	@Override
+	public String toString() {
+		return url;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 IBM Corporation and others.
+ * Copyright (c) 2018, 2019 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v2.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,12 @@
 
 package com.ibm.microclimate.ui.internal.views;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.ibm.microclimate.core.internal.ApplicationChangeEvent;
+import com.ibm.microclimate.core.internal.ConnectionChangeEvent;
+import com.ibm.microclimate.core.internal.IModelChangeListener;
 import com.ibm.microclimate.core.internal.IUpdateHandler;
 import com.ibm.microclimate.core.internal.MicroclimateApplication;
 import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
@@ -19,15 +25,23 @@ import com.ibm.microclimate.core.internal.connection.MicroclimateConnection;
  * Update handler registered on the Microclimate core plug-in in order to keep
  * the Microclimate view up to date.
  */
-public class UpdateHandler implements IUpdateHandler {
-	
+public class UpdateHandler implements IUpdateHandler, IModelChangeListener {
+
+	// The application fields that are shown in its label
+	private static final Set<ApplicationChangeEvent.Field> LABEL_FIELDS = EnumSet.of(
+			ApplicationChangeEvent.Field.APP_STATE, ApplicationChangeEvent.Field.BUILD_STATUS,
+			ApplicationChangeEvent.Field.START_MODE, ApplicationChangeEvent.Field.ENABLED,
+			ApplicationChangeEvent.Field.STALE);
+
 	@Override
 	public void updateAll() {
+		MicroclimateNavigatorLabelProvider.invalidateAll();
 		ViewHelper.refreshMicroclimateExplorerView(null);
 	}
 
 	@Override
 	public void updateConnection(MicroclimateConnection connection) {
+		MicroclimateNavigatorLabelProvider.invalidate(connection);
 		ViewHelper.refreshMicroclimateExplorerView(connection);
 	}
 
@@ -36,4 +50,26 @@ public class UpdateHandler implements IUpdateHandler {
 		ViewHelper.refreshMicroclimateExplorerView(application);
 	}
 
+	@Override
+	public void applicationChanged(ApplicationChangeEvent event) {
+		// Apps have no children so only the label can need updating
+		for (ApplicationChangeEvent.Field field : event.fields) {
+			if (LABEL_FIELDS.contains(field)) {
+				ViewHelper.updateMicroclimateExplorerView(event.app);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void connectionChanged(ConnectionChangeEvent event) {
+		// Application labels follow the state version, but connection labels must be dropped here
+		MicroclimateNavigatorLabelProvider.invalidate(event.connection);
+		if (event.hasChanged(ConnectionChangeEvent.Field.APPS)) {
+			ViewHelper.refreshMicroclimateExplorerView(event.connection);
+		} else {
+			ViewHelper.updateMicroclimateExplorerView(event.connection);
+		}
+	}
+
 }
@@ -134,9 +134,15 @@ public class NewMicroclimateConnectionPage extends WizardPage {
 
 		// In the Local case, the user can only create one connection,
 		// so if they have one already, block the Add button.
+		// A saved connection that is still being restored counts as well.
+		String existingConnectionUrl = null;
 		if (MicroclimateConnectionManager.activeConnectionsCount() > 0) {
+			existingConnectionUrl = MicroclimateConnectionManager.activeConnections().get(0).baseUrl.toString();
+		} else if (!MicroclimateConnectionManager.pendingConnections().isEmpty()) {
+			existingConnectionUrl = MicroclimateConnectionManager.pendingConnections().get(0);
+		}
+		if (existingConnectionUrl != null) {
 			testConnectionBtn.setEnabled(false);
-			String existingConnectionUrl = MicroclimateConnectionManager.activeConnections().get(0).baseUrl.toString();
 			setErrorMessage(
 					NLS.bind(Messages.NewConnectionPage_ErrAConnectionAlreadyExists,
 					existingConnectionUrl));